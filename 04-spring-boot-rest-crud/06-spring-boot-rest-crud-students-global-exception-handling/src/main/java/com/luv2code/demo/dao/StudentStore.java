@@ -0,0 +1,90 @@
+package com.luv2code.demo.dao;
+
+import com.luv2code.demo.entity.Student;
+import org.springframework.stereotype.Repository;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread-safe in-memory store for students, indexed by id.
+ *
+ * Single lookups go straight to the map. List reads return an immutable snapshot that is
+ * rebuilt on every write, so readers never lock and never see a half-applied change.
+ * Writers are serialised with each other so the snapshot always matches the map.
+ *
+ * Stored students are never mutated in place ... an update swaps in a new instance.
+ */
+@Repository
+public class StudentStore {
+
+    private final Map<Integer, Student> studentsById = new ConcurrentHashMap<>();
+
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    private final Object writeLock = new Object();
+
+    private volatile List<Student> snapshot = List.of();
+
+    public List<Student> findAll() {
+        return snapshot;
+    }
+
+    public Student findById(int theId) {
+        return studentsById.get(theId);
+    }
+
+    public Student add(Student theStudent) {
+
+        Student newStudent = new Student(nextId.getAndIncrement(),
+                theStudent.getFirstName(), theStudent.getLastName());
+
+        synchronized (writeLock) {
+            studentsById.put(newStudent.getId(), newStudent);
+            refreshSnapshot();
+        }
+
+        return newStudent;
+    }
+
+    // returns null if there is no student with the given id
+
+    public Student update(int theId, Student theStudent) {
+
+        Student updatedStudent = new Student(theId, theStudent.getFirstName(), theStudent.getLastName());
+
+        synchronized (writeLock) {
+            if (studentsById.replace(theId, updatedStudent) == null) {
+                return null;
+            }
+            refreshSnapshot();
+        }
+
+        return updatedStudent;
+    }
+
+    // returns false if there is no student with the given id
+
+    public boolean deleteById(int theId) {
+
+        synchronized (writeLock) {
+            if (studentsById.remove(theId) == null) {
+                return false;
+            }
+            refreshSnapshot();
+        }
+
+        return true;
+    }
+
+    // only called while holding writeLock
+
+    private void refreshSnapshot() {
+        snapshot = studentsById.values().stream()
+                .sorted(Comparator.comparingInt(Student::getId))
+                .toList();
+    }
+}
@@ -1,16 +1,18 @@
 package com.luv2code.demo.rest;
 
-public class StudentNotFoundException extends RuntimeException {
+import org.springframework.http.HttpStatus;
+
+public class StudentNotFoundException extends ApiException {
 
     public StudentNotFoundException(String message) {
-        super(message);
+        super(HttpStatus.NOT_FOUND, message);
     }
 
     public StudentNotFoundException(String message, Throwable cause) {
-        super(message, cause);
+        super(HttpStatus.NOT_FOUND, message, cause);
     }
 
     public StudentNotFoundException(Throwable cause) {
-        super(cause);
+        super(HttpStatus.NOT_FOUND, cause == null ? null : cause.toString(), cause);
     }
 }
@@ -1,30 +1,35 @@
 package com.luv2code.demo.rest;
 
+import com.luv2code.demo.dao.StudentStore;
 import com.luv2code.demo.entity.Student;
 import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.ArrayList;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api")
 public class StudentRestController {
 
-    private List<Student> theStudents;
+    private StudentStore studentStore;
+
+    @Autowired
+    public StudentRestController(StudentStore theStudentStore) {
+        studentStore = theStudentStore;
+    }
 
     // define @PostConstruct to load the student data ... only once!
 
     @PostConstruct
     public void loadData() {
 
-        theStudents = new ArrayList<>();
+        // ids are handed out in order, so these get 0, 1 and 2
 
-        theStudents.add(new Student("Poornima", "Patel"));
-        theStudents.add(new Student("Mario", "Rossi"));
-        theStudents.add(new Student("Mary", "Smith"));
+        studentStore.add(new Student("Poornima", "Patel"));
+        studentStore.add(new Student("Mario", "Rossi"));
+        studentStore.add(new Student("Mary", "Smith"));
     }
 
 
@@ -33,41 +38,56 @@ public class StudentRestController {
     @GetMapping("/students")
     public List<Student> getStudents() {
 
-        return theStudents;
+        return studentStore.findAll();
     }
 
-    // define endpoint or "/students/{studentId}" - return student at index
+    // define endpoint or "/students/{studentId}" - return student with the given id
 
     @GetMapping("/students/{studentId}")
     public Student getStudent(@PathVariable int studentId) {
 
-        // just index into the list ... keep it simple for now
-
-        // check the studentId again list size
+        Student theStudent = studentStore.findById(studentId);
 
-        if ( (studentId >= theStudents.size()) || (studentId < 0)) {
+        if (theStudent == null) {
             throw new StudentNotFoundException("Student id not found - " + studentId);
         }
 
-        return theStudents.get(studentId);
+        return theStudent;
     }
 
-    // Add an exception handler using @ExceptionHandler
-
-
-}
-
-
-
+    // add mapping for POST /students - add new student ... any id in the JSON is ignored
 
+    @PostMapping("/students")
+    @ResponseStatus(HttpStatus.CREATED)
+    public Student addStudent(@RequestBody Student theStudent) {
 
+        return studentStore.add(theStudent);
+    }
 
+    // add mapping for PUT /students/{studentId} - update existing student
 
+    @PutMapping("/students/{studentId}")
+    public Student updateStudent(@PathVariable int studentId, @RequestBody Student theStudent) {
 
+        Student updatedStudent = studentStore.update(studentId, theStudent);
 
+        if (updatedStudent == null) {
+            throw new StudentNotFoundException("Student id not found - " + studentId);
+        }
 
+        return updatedStudent;
+    }
 
+    // add mapping for DELETE /students/{studentId} - delete student
 
+    @DeleteMapping("/students/{studentId}")
+    public String deleteStudent(@PathVariable int studentId) {
 
+        if (!studentStore.deleteById(studentId)) {
+            throw new StudentNotFoundException("Student id not found - " + studentId);
+        }
 
+        return "Deleted student id - " + studentId;
+    }
 
+}
@@ -1,6 +1,7 @@
 package com.luv2code.demo.rest;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -10,35 +11,21 @@ public class StudentRestExceptionHandler {
 
     // add exception handling code here
 
-    @ExceptionHandler
-    public ResponseEntity<StudentErrorResponse> handleException(StudentNotFoundException exc) {
-
-        // create a StudentErrorResponse
-
-        StudentErrorResponse error = new StudentErrorResponse();
+    // expected errors (student not found, etc) ... write a preserialised problem+json body
 
-        error.setStatus(HttpStatus.NOT_FOUND.value());
-        error.setMessage(exc.getMessage());
-        error.setTimeStamp(System.currentTimeMillis());
-
-        // return ResponseEntity
+    @ExceptionHandler
+    public ResponseEntity<byte[]> handleException(ApiException exc) {
 
-        return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
+        return ProblemResponses.of(exc.getStatus(), exc.getMessage());
     }
 
     // add another exception handler ... to catch any exception (catch all)
 
     @ExceptionHandler
-    public ResponseEntity<StudentErrorResponse> handleException(Exception exc) {
-
-        // create a StudentErrorResponse
-        StudentErrorResponse error = new StudentErrorResponse();
+    public ResponseEntity<ProblemDetail> handleException(Exception exc) {
 
-        error.setStatus(HttpStatus.BAD_REQUEST.value());
-        error.setMessage(exc.getMessage());
-        error.setTimeStamp(System.currentTimeMillis());
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, exc.getMessage());
 
-        // return ResponseEntity
-        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+        return ResponseEntity.of(problem).build();
     }
 }
@@ -2,6 +2,7 @@ package com.luv2code.springboot.cruddemo.rest;
 
 import tools.jackson.databind.json.JsonMapper;
 import com.luv2code.springboot.cruddemo.entity.Employee;
+import com.luv2code.springboot.cruddemo.service.EmployeeNotFoundException;
 import com.luv2code.springboot.cruddemo.service.EmployeeService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
@@ -37,7 +38,7 @@ public class EmployeeRestController {
         Employee theEmployee = employeeService.findById(employeeId);
 
         if (theEmployee == null) {
-            throw new RuntimeException("Employee id not found - " + employeeId);
+            throw new EmployeeNotFoundException("Employee id not found - " + employeeId);
         }
 
         return theEmployee;
@@ -78,13 +79,13 @@ public class EmployeeRestController {
         Employee tempEmployee = employeeService.findById(employeeId);
 
         if (tempEmployee == null) {
-            throw new RuntimeException("Employee id not found - " + employeeId);
+            throw new EmployeeNotFoundException("Employee id not found - " + employeeId);
         }
 
         // Step 2: Security check - prevent ID modifications
         // The ID should never change, so reject any attempts to modify it
         if (patchPayload.containsKey("id")) {
-            throw new RuntimeException(
+            throw new InvalidRequestException(
                 "Employee id cannot be modified. Remove 'id' from request body."
             );
         }
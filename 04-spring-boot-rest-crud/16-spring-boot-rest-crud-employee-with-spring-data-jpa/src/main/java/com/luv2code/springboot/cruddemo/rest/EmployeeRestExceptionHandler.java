@@ -0,0 +1,20 @@
+package com.luv2code.springboot.cruddemo.rest;
+
+import com.luv2code.springboot.cruddemo.service.ApiException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+@ControllerAdvice
+public class EmployeeRestExceptionHandler {
+
+    // expected errors (employee not found, bad patch payload) ... write a preserialised problem+json body
+
+    @ExceptionHandler
+    public ResponseEntity<byte[]> handleException(ApiException exc) {
+
+        return ProblemResponses.of(exc.getStatus(), exc.getMessage());
+    }
+
+    // anything else is left to Spring's defaults ... 404 for unknown paths, 500 for real failures
+}
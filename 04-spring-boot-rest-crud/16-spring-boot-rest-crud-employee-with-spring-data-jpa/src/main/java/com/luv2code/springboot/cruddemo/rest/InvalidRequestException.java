@@ -0,0 +1,11 @@
+package com.luv2code.springboot.cruddemo.rest;
+
+import com.luv2code.springboot.cruddemo.service.ApiException;
+import org.springframework.http.HttpStatus;
+
+public class InvalidRequestException extends ApiException {
+
+    public InvalidRequestException(String message) {
+        super(HttpStatus.BAD_REQUEST, message);
+    }
+}
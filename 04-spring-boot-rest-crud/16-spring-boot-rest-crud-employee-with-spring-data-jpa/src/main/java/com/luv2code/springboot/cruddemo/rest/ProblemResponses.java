@@ -0,0 +1,85 @@
+package com.luv2code.springboot.cruddemo.rest;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Builds RFC 9457 "application/problem+json" bodies straight into bytes.
+ *
+ * The fixed part of each body ("type", "title", "status") is serialised once per status
+ * at startup, so an error response only has to append the escaped detail message.
+ * The layout matches what Spring writes for a {@link org.springframework.http.ProblemDetail}.
+ */
+final class ProblemResponses {
+
+    private static final byte[] SUFFIX = "\"}".getBytes(StandardCharsets.UTF_8);
+
+    private static final Map<HttpStatus, byte[]> PREFIXES = new EnumMap<>(HttpStatus.class);
+
+    static {
+        for (HttpStatus status : HttpStatus.values()) {
+            String prefix = "{\"type\":\"about:blank\",\"title\":\"" + status.getReasonPhrase()
+                    + "\",\"status\":" + status.value() + ",\"detail\":\"";
+            PREFIXES.put(status, prefix.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private ProblemResponses() {
+    }
+
+    static ResponseEntity<byte[]> of(HttpStatus status, String detail) {
+
+        byte[] prefix = PREFIXES.get(status);
+        byte[] escapedDetail = escape(detail == null ? "" : detail).getBytes(StandardCharsets.UTF_8);
+
+        byte[] body = new byte[prefix.length + escapedDetail.length + SUFFIX.length];
+        System.arraycopy(prefix, 0, body, 0, prefix.length);
+        System.arraycopy(escapedDetail, 0, body, prefix.length, escapedDetail.length);
+        System.arraycopy(SUFFIX, 0, body, prefix.length + escapedDetail.length, SUFFIX.length);
+
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .body(body);
+    }
+
+    // minimal JSON string escaping ... our messages are plain text, so this is usually a no-op
+
+    static String escape(String text) {
+
+        StringBuilder result = null;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+
+            String replacement = switch (c) {
+                case '"' -> "\\\"";
+                case '\\' -> "\\\\";
+                case '\n' -> "\\n";
+                case '\r' -> "\\r";
+                case '\t' -> "\\t";
+                default -> c < 0x20 ? String.format("\\u%04x", (int) c) : null;
+            };
+
+            if (replacement != null && result == null) {
+                result = new StringBuilder(text.length() + 16);
+                result.append(text, 0, i);
+            }
+
+            if (result != null) {
+                if (replacement != null) {
+                    result.append(replacement);
+                }
+                else {
+                    result.append(c);
+                }
+            }
+        }
+
+        return result == null ? text : result.toString();
+    }
+}
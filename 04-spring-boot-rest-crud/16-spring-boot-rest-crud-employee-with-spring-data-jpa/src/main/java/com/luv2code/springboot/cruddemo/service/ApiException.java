@@ -0,0 +1,25 @@
+package com.luv2code.springboot.cruddemo.service;
+
+import org.springframework.http.HttpStatus;
+
+public abstract class ApiException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    // expected client errors (not found, bad input) ... the stack trace is never looked at,
+    // so skip filling it in and skip the suppressed list
+
+    protected ApiException(HttpStatus status, String message) {
+        super(message, null, false, false);
+        this.status = status;
+    }
+
+    protected ApiException(HttpStatus status, String message, Throwable cause) {
+        super(message, cause, false, false);
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
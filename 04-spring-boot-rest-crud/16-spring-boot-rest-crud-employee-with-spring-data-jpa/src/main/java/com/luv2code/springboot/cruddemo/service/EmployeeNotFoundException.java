@@ -0,0 +1,10 @@
+package com.luv2code.springboot.cruddemo.service;
+
+import org.springframework.http.HttpStatus;
+
+public class EmployeeNotFoundException extends ApiException {
+
+    public EmployeeNotFoundException(String message) {
+        super(HttpStatus.NOT_FOUND, message);
+    }
+}
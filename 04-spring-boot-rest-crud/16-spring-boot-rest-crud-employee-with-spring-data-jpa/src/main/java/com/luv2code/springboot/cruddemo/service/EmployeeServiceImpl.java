@@ -34,7 +34,7 @@ public class EmployeeServiceImpl implements EmployeeService {
         }
         else {
             // we didn't find the employee
-            throw new RuntimeException("Did not find employee id - " + theId);
+            throw new EmployeeNotFoundException("Did not find employee id - " + theId);
         }
 
         return theEmployee;
@@ -0,0 +1,21 @@
+package com.luv2code.springboot.cruddemo.dao;
+
+/**
+ * How the total for a page of employees is worked out.
+ *
+ * Set with "employees.paging.count-mode" in application.properties.
+ */
+public enum CountMode {
+
+    // SELECT COUNT(*) for every page that needs it (the Spring Data default)
+    EXACT,
+
+    // SELECT COUNT(*) at most once per "employees.paging.count-staleness"
+    CACHED,
+
+    // row estimate from information_schema, refreshed at most once per "employees.paging.count-staleness"
+    APPROXIMATE,
+
+    // no totals at all ... the collection resource returns slices with next/prev links only
+    NONE
+}
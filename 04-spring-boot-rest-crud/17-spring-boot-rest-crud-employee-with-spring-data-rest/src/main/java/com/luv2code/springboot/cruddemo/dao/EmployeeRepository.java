@@ -3,8 +3,10 @@ package com.luv2code.springboot.cruddemo.dao;
 import com.luv2code.springboot.cruddemo.entity.Employee;
 import org.springframework.data.jpa.repository.JpaRepository;
 
-public interface EmployeeRepository extends JpaRepository<Employee, Integer> {
+public interface EmployeeRepository extends JpaRepository<Employee, Integer>, EmployeeRepositoryCustom {
 
     // that's it ... no need to write any code LOL!
 
+    // (paging with cheaper counts lives in EmployeeRepositoryCustom)
+
 }
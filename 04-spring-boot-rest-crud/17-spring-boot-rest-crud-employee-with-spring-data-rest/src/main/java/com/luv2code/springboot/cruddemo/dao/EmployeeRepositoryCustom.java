@@ -0,0 +1,18 @@
+package com.luv2code.springboot.cruddemo.dao;
+
+import com.luv2code.springboot.cruddemo.entity.Employee;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+public interface EmployeeRepositoryCustom {
+
+    // replaces the default findAll(Pageable) ... the total comes from the configured count mode
+
+    Page<Employee> findAll(Pageable pageable);
+
+    // one page plus a "has next" flag ... never runs a count query
+
+    Slice<Employee> findSlice(Pageable pageable);
+
+}
@@ -1,11 +1,27 @@
 package com.luv2code.springboot.cruddemo.dao;
 
 import com.luv2code.springboot.cruddemo.entity.Employee;
+import com.luv2code.springboot.cruddemo.entity.EmployeeSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
 
 // @RepositoryRestResource(path="members")
-public interface EmployeeRepository extends JpaRepository<Employee, Integer> {
+@RepositoryRestResource(excerptProjection = EmployeeSummary.class)
+public interface EmployeeRepository extends JpaRepository<Employee, Integer>, EmployeeRepositoryCustom {
 
     // that's it ... no need to write any code LOL!
 
+    // (paging with cheaper counts lives in EmployeeRepositoryCustom)
+
+    // only the summary columns are selected ... no entities are loaded or managed
+    // exposed as /magic-api/employees/search/summaries
+
+    @RestResource(path = "summaries", rel = "summaries")
+    @Query("select e.id as id, e.firstName as firstName, e.lastName as lastName from Employee e")
+    Slice<EmployeeSummary> findSummariesBy(Pageable pageable);
+
 }
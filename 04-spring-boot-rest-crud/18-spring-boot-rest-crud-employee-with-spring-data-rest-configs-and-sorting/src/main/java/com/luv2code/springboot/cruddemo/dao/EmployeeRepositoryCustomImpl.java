@@ -0,0 +1,135 @@
+package com.luv2code.springboot.cruddemo.dao;
+
+import com.luv2code.springboot.cruddemo.entity.Employee;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.time.Duration;
+import java.util.List;
+
+public class EmployeeRepositoryCustomImpl implements EmployeeRepositoryCustom {
+
+    private static final String SELECT_EMPLOYEES = "select e from Employee e";
+
+    private static final String COUNT_EMPLOYEES = "select count(e) from Employee e";
+
+    private static final String ESTIMATE_EMPLOYEES =
+            "select table_rows from information_schema.tables"
+                    + " where table_schema = database() and table_name = 'employee'";
+
+    private EntityManager entityManager;
+
+    private CountMode countMode;
+
+    private long stalenessNanos;
+
+    private volatile CachedCount cachedCount;
+
+    public EmployeeRepositoryCustomImpl(EntityManager theEntityManager,
+                                        @Value("${employees.paging.count-mode:exact}") CountMode theCountMode,
+                                        @Value("${employees.paging.count-staleness:30s}") Duration theStaleness) {
+        entityManager = theEntityManager;
+        countMode = theCountMode;
+        stalenessNanos = theStaleness.toNanos();
+    }
+
+    @Override
+    public Page<Employee> findAll(Pageable pageable) {
+
+        List<Employee> content = createSelectQuery(pageable, 0).getResultList();
+
+        // PageableExecutionUtils skips the count when the page itself tells us the total
+        // (first page not full, or last page)
+
+        return PageableExecutionUtils.getPage(content, pageable, this::count);
+    }
+
+    @Override
+    public Slice<Employee> findSlice(Pageable pageable) {
+
+        // read one extra row to find out if there is a next page
+
+        List<Employee> content = createSelectQuery(pageable, 1).getResultList();
+
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(content, pageable, false);
+        }
+
+        boolean hasNext = content.size() > pageable.getPageSize();
+
+        if (hasNext) {
+            content = content.subList(0, pageable.getPageSize());
+        }
+
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    private TypedQuery<Employee> createSelectQuery(Pageable pageable, int extraRows) {
+
+        String jpql = QueryUtils.applySorting(SELECT_EMPLOYEES, pageable.getSort(), "e");
+
+        TypedQuery<Employee> query = entityManager.createQuery(jpql, Employee.class);
+
+        if (pageable.isPaged()) {
+            query.setFirstResult(Math.toIntExact(pageable.getOffset()));
+            query.setMaxResults(pageable.getPageSize() + extraRows);
+        }
+
+        return query;
+    }
+
+    private long count() {
+
+        switch (countMode) {
+            case CACHED:
+            case APPROXIMATE:
+                return cachedCount();
+            default:
+                return exactCount();
+        }
+    }
+
+    private long cachedCount() {
+
+        CachedCount current = cachedCount;
+        long now = System.nanoTime();
+
+        if (current != null && now - current.takenAt() < stalenessNanos) {
+            return current.value();
+        }
+
+        // a few concurrent requests may refresh at the same time ... that's ok, last one wins
+
+        long value = (countMode == CountMode.APPROXIMATE) ? estimatedCount() : exactCount();
+        cachedCount = new CachedCount(value, now);
+
+        return value;
+    }
+
+    private long exactCount() {
+        return entityManager.createQuery(COUNT_EMPLOYEES, Long.class).getSingleResult();
+    }
+
+    private long estimatedCount() {
+
+        List<?> result = entityManager.createNativeQuery(ESTIMATE_EMPLOYEES).getResultList();
+
+        // no statistics yet (or not MySQL) ... fall back to the real count
+
+        if (result.isEmpty() || result.get(0) == null) {
+            return exactCount();
+        }
+
+        return ((Number) result.get(0)).longValue();
+    }
+
+    private record CachedCount(long value, long takenAt) {
+    }
+}
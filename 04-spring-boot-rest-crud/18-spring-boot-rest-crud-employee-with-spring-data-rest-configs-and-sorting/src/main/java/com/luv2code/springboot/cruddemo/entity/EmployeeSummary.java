@@ -0,0 +1,17 @@
+package com.luv2code.springboot.cruddemo.entity;
+
+import org.springframework.data.rest.core.config.Projection;
+
+// lean view of an employee ... used as the excerpt in collection resources
+// and as the result type of the column-only summary queries
+
+@Projection(name = "summary", types = Employee.class)
+public interface EmployeeSummary {
+
+    int getId();
+
+    String getFirstName();
+
+    String getLastName();
+
+}
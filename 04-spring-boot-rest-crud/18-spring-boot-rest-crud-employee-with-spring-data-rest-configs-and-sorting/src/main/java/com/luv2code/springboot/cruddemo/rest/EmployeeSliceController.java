@@ -0,0 +1,44 @@
+package com.luv2code.springboot.cruddemo.rest;
+
+import com.luv2code.springboot.cruddemo.dao.EmployeeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.rest.webmvc.PersistentEntityResource;
+import org.springframework.data.rest.webmvc.PersistentEntityResourceAssembler;
+import org.springframework.data.rest.webmvc.RepositoryRestController;
+import org.springframework.data.web.SlicedResourcesAssembler;
+import org.springframework.hateoas.SlicedModel;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+
+// replaces the Spring Data REST collection resource when employees.paging.count-mode=none
+//
+// same items and links as before, but the "page" block has no totalElements/totalPages,
+// so no SELECT COUNT(*) is needed
+
+@RepositoryRestController
+@ConditionalOnProperty(name = "employees.paging.count-mode", havingValue = "none")
+public class EmployeeSliceController {
+
+    private EmployeeRepository employeeRepository;
+
+    private SlicedResourcesAssembler<Object> slicedResourcesAssembler;
+
+    @Autowired
+    public EmployeeSliceController(EmployeeRepository theEmployeeRepository,
+                                   SlicedResourcesAssembler<Object> theSlicedResourcesAssembler) {
+        employeeRepository = theEmployeeRepository;
+        slicedResourcesAssembler = theSlicedResourcesAssembler;
+    }
+
+    @GetMapping("/employees")
+    public ResponseEntity<SlicedModel<PersistentEntityResource>> findAll(Pageable pageable,
+                                                                         PersistentEntityResourceAssembler entityAssembler) {
+
+        Slice<Object> employees = employeeRepository.findSlice(pageable).map(Object.class::cast);
+
+        return ResponseEntity.ok(slicedResourcesAssembler.toModel(employees, entityAssembler));
+    }
+}
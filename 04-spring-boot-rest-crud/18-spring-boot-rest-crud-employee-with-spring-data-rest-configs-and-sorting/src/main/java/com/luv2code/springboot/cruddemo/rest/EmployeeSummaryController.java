@@ -0,0 +1,42 @@
+package com.luv2code.springboot.cruddemo.rest;
+
+import com.luv2code.springboot.cruddemo.dao.EmployeeRepository;
+import com.luv2code.springboot.cruddemo.entity.EmployeeSummary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+// plain application/json employee listing for bulk consumers
+//
+// no HAL, no per-item links, no count query ... just the summary columns and a "hasNext" flag
+// e.g. GET /api/employees/summaries?page=0&size=1000&sort=lastName
+
+@RestController
+@RequestMapping("/api")
+public class EmployeeSummaryController {
+
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    public EmployeeSummaryController(EmployeeRepository theEmployeeRepository) {
+        employeeRepository = theEmployeeRepository;
+    }
+
+    @GetMapping(value = "/employees/summaries", produces = MediaType.APPLICATION_JSON_VALUE)
+    public SummaryPage findSummaries(Pageable pageable) {
+
+        Slice<EmployeeSummary> summaries = employeeRepository.findSummariesBy(pageable);
+
+        return new SummaryPage(summaries.getContent(), summaries.getNumber(),
+                summaries.getSize(), summaries.hasNext());
+    }
+
+    public record SummaryPage(List<EmployeeSummary> content, int page, int size, boolean hasNext) {
+    }
+}
@@ -0,0 +1,20 @@
+package com.luv2code.springboot.cruddemo.rest;
+
+import io.swagger.v3.oas.models.servers.Server;
+import org.springdoc.core.customizers.OpenApiCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+@Configuration
+public class OpenApiConfig {
+
+    // a relative server ... otherwise the document baked at build time says http://localhost:8080,
+    // and Swagger UI would send every request there, whatever host the app is deployed on
+
+    @Bean
+    public OpenApiCustomizer relativeServerCustomizer() {
+        return openApi -> openApi.setServers(List.of(new Server().url("/")));
+    }
+}
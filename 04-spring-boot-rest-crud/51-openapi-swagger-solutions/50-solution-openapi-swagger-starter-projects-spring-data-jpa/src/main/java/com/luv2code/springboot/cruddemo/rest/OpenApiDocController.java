@@ -0,0 +1,171 @@
+package com.luv2code.springboot.cruddemo.rest;
+
+import io.swagger.v3.oas.annotations.Hidden;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+// serves the OpenAPI document generated at build time (see the "openapi" profile in pom.xml)
+//
+// the document is read and gzipped once at startup, so a request is just a byte copy ...
+// no controller scanning, and "If-None-Match" lets clients skip the download entirely
+//
+// if the jar was built without the document (without -Popenapi), fall back to the
+// runtime-generated /v3/api-docs
+
+@Hidden
+@RestController
+public class OpenApiDocController {
+
+    private static final String DOC_LOCATION = "openapi/openapi.json";
+
+    private final byte[] doc;
+
+    private final byte[] gzippedDoc;
+
+    private final String eTag;
+
+    private final String apiDocsPath;
+
+    public OpenApiDocController(@Value("${springdoc.api-docs.path:/v3/api-docs}") String apiDocsPath) {
+
+        this.apiDocsPath = apiDocsPath;
+
+        ClassPathResource resource = new ClassPathResource(DOC_LOCATION);
+
+        if (resource.exists()) {
+            try (InputStream in = resource.getInputStream()) {
+                doc = in.readAllBytes();
+            }
+            catch (IOException exc) {
+                throw new UncheckedIOException("Could not read " + DOC_LOCATION, exc);
+            }
+            gzippedDoc = gzip(doc);
+            eTag = "\"" + sha256(doc) + "\"";
+        }
+        else {
+            doc = null;
+            gzippedDoc = null;
+            eTag = null;
+        }
+    }
+
+    @GetMapping("/openapi.json")
+    public ResponseEntity<byte[]> getOpenApiDoc(
+            HttpServletRequest request,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+        if (doc == null) {
+            return ResponseEntity.status(HttpStatus.TEMPORARY_REDIRECT)
+                    .location(URI.create(request.getContextPath() + apiDocsPath))
+                    .build();
+        }
+
+        if (ifNoneMatch != null && ifNoneMatch.contains(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag)
+                    .build();
+        }
+
+        boolean useGzip = acceptsGzip(acceptEncoding);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+
+        if (useGzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(gzippedDoc);
+        }
+
+        return response.body(doc);
+    }
+
+    // "gzip" or "*" with a q-value above 0 ... "gzip;q=0" means the client refuses it
+
+    static boolean acceptsGzip(String acceptEncoding) {
+
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        Double gzipQuality = null;
+        Double anyQuality = null;
+
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1.0;
+
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+
+                if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2).trim());
+                    }
+                    catch (NumberFormatException exc) {
+                        quality = 0;
+                    }
+                }
+            }
+
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                gzipQuality = quality;
+            }
+            else if (name.equals("*")) {
+                anyQuality = quality;
+            }
+        }
+
+        if (gzipQuality != null) {
+            return gzipQuality > 0;
+        }
+
+        return anyQuality != null && anyQuality > 0;
+    }
+
+    private static byte[] gzip(byte[] data) {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4);
+
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+            gzipOut.write(data);
+        }
+        catch (IOException exc) {
+            throw new UncheckedIOException(exc);
+        }
+
+        return out.toByteArray();
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        }
+        catch (NoSuchAlgorithmException exc) {
+            throw new IllegalStateException(exc);
+        }
+    }
+}
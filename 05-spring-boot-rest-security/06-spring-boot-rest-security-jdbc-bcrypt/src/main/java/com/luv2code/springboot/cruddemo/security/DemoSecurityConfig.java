@@ -1,15 +1,20 @@
 package com.luv2code.springboot.cruddemo.security;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.provisioning.JdbcUserDetailsManager;
 import org.springframework.security.provisioning.UserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 
 import javax.sql.DataSource;
+import java.time.Duration;
 
 @Configuration
 public class DemoSecurityConfig {
@@ -20,6 +25,26 @@ public class DemoSecurityConfig {
         return new JdbcUserDetailsManager(dataSource);
     }
 
+    // remember successful password checks for a short time ... saves a BCrypt check per request
+
+    @Bean
+    public PasswordEncoder passwordEncoder(@Value("${security.verified-credentials.max-size:10000}") int maxSize,
+                                           @Value("${security.verified-credentials.ttl:60s}") Duration ttl) {
+
+        return new CachingPasswordEncoder(PasswordEncoderFactories.createDelegatingPasswordEncoder(), maxSize, ttl);
+    }
+
+    @Bean
+    public DaoAuthenticationProvider authenticationProvider(UserDetailsManager userDetailsManager,
+                                                            PasswordEncoder passwordEncoder) {
+
+        DaoAuthenticationProvider authenticationProvider = new DaoAuthenticationProvider(userDetailsManager);
+
+        authenticationProvider.setPasswordEncoder(passwordEncoder);
+
+        return authenticationProvider;
+    }
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
 
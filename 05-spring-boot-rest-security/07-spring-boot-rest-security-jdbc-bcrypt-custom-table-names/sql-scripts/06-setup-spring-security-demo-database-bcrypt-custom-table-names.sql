@@ -9,7 +9,7 @@ DROP TABLE IF EXISTS `members`;
 
 CREATE TABLE `members` (
   `user_id` varchar(50) NOT NULL,
-  `pw` char(68) NOT NULL,
+  `pw` varchar(200) NOT NULL,
   `active` tinyint NOT NULL,
   PRIMARY KEY (`user_id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=latin1;
@@ -19,6 +19,8 @@ CREATE TABLE `members` (
 --
 -- NOTE: The passwords are encrypted using BCrypt
 --
+-- pw is wide enough for the {argon2@SpringSecurity_v5_8} hashes they are upgraded to on login
+--
 -- A generation tool is avail at: https://www.luv2code.com/generate-bcrypt-password
 --
 -- Default passwords here are: fun123
@@ -0,0 +1,106 @@
+package com.luv2code.springboot.cruddemo.rest;
+
+import com.luv2code.springboot.cruddemo.security.TokenService;
+import com.luv2code.springboot.cruddemo.security.TokenService.TokenResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+@RestController
+@RequestMapping("/api/auth")
+public class AuthRestController {
+
+    private TokenService tokenService;
+
+    private UserDetailsService userDetailsService;
+
+    @Autowired
+    public AuthRestController(TokenService theTokenService, UserDetailsService theUserDetailsService) {
+        tokenService = theTokenService;
+        userDetailsService = theUserDetailsService;
+    }
+
+    // log in once with HTTP Basic ... then use the access token as "Authorization: Bearer <token>"
+
+    @PostMapping("/login")
+    public TokenResponse login(Authentication authentication) {
+
+        // also checked by the security config ... never mint tokens from a Bearer token
+        if (!(authentication instanceof UsernamePasswordAuthenticationToken)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Log in with username and password");
+        }
+
+        return tokenService.issueTokens(authentication.getName(), authentication.getAuthorities());
+    }
+
+    // trade a refresh token for a new pair of tokens ... the old refresh token is revoked
+
+    @PostMapping("/refresh")
+    public TokenResponse refresh(@RequestBody RefreshRequest refreshRequest) {
+
+        Jwt refreshToken;
+
+        try {
+            refreshToken = tokenService.decodeRefreshToken(refreshRequest.refreshToken());
+        }
+        catch (JwtException exc) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid refresh token");
+        }
+
+        // revoke first, in one step ... a refresh token can be used once, even by concurrent calls
+
+        if (!tokenService.revoke(refreshToken)) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid refresh token");
+        }
+
+        // reload the user, so role changes and disabled accounts take effect on refresh
+
+        UserDetails user;
+
+        try {
+            user = userDetailsService.loadUserByUsername(refreshToken.getSubject());
+        }
+        catch (UsernameNotFoundException exc) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid refresh token");
+        }
+
+        if (!user.isEnabled() || !user.isAccountNonLocked()) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Account is disabled or locked");
+        }
+
+        return tokenService.issueTokens(user.getUsername(), user.getAuthorities());
+    }
+
+    // revoke the access token used for this call (and the refresh token, if given)
+
+    @PostMapping("/logout")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void logout(@AuthenticationPrincipal Jwt accessToken,
+                       @RequestBody(required = false) RefreshRequest refreshRequest) {
+
+        if (accessToken != null) {
+            tokenService.revoke(accessToken);
+        }
+
+        if (refreshRequest != null && refreshRequest.refreshToken() != null) {
+            try {
+                tokenService.revoke(tokenService.decodeRefreshToken(refreshRequest.refreshToken()));
+            }
+            catch (JwtException exc) {
+                // already invalid ... nothing to revoke
+            }
+        }
+    }
+
+    public record RefreshRequest(String refreshToken) {
+    }
+}
@@ -0,0 +1,31 @@
+package com.luv2code.springboot.cruddemo.rest;
+
+import com.luv2code.springboot.cruddemo.security.JdbcBulkUserProvisioner;
+import com.luv2code.springboot.cruddemo.security.JdbcBulkUserProvisioner.NewAccount;
+import com.luv2code.springboot.cruddemo.security.JdbcBulkUserProvisioner.Outcome;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/users")
+public class UserProvisioningRestController {
+
+    private JdbcBulkUserProvisioner bulkUserProvisioner;
+
+    @Autowired
+    public UserProvisioningRestController(JdbcBulkUserProvisioner theBulkUserProvisioner) {
+        bulkUserProvisioner = theBulkUserProvisioner;
+    }
+
+    // create many users at once ... returns one outcome per user, in the order sent
+    //
+    // [ { "username": "anna", "password": "fun123", "roles": [ "EMPLOYEE" ] }, ... ]
+
+    @PostMapping("/bulk")
+    public List<Outcome> createUsers(@RequestBody List<NewAccount> accounts) {
+
+        return bulkUserProvisioner.createUsers(accounts);
+    }
+}
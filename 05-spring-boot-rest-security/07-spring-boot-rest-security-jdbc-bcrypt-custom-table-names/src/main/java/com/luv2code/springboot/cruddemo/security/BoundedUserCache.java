@@ -0,0 +1,115 @@
+package com.luv2code.springboot.cruddemo.security;
+
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-bounded, time-limited {@link UserCache}.
+ *
+ * Holds at most {@code maxSize} users (least recently used go first) and
+ * forgets each entry {@code ttl} after it was cached, so changes made directly
+ * in the members/roles tables show up after at most one TTL.
+ * Changes made through the JdbcUserDetailsManager evict straight away.
+ *
+ * Entries are copied on the way in and on the way out. Spring Security erases the
+ * password of the principal after authentication, and without the copies that would
+ * wipe the cached password too.
+ */
+public class BoundedUserCache implements UserCache {
+
+    private final Map<String, Entry> entries;
+
+    private final long ttlNanos;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    public BoundedUserCache(int maxSize, Duration ttl) {
+
+        ttlNanos = ttl.toNanos();
+
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    @Override
+    public UserDetails getUserFromCache(String username) {
+
+        Entry entry;
+
+        synchronized (entries) {
+            entry = entries.get(username);
+
+            if (entry != null && System.nanoTime() - entry.cachedAt() > ttlNanos) {
+                entries.remove(username);
+                entry = null;
+            }
+        }
+
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        return copyOf(entry.user());
+    }
+
+    @Override
+    public void putUserInCache(UserDetails user) {
+
+        Entry entry = new Entry(copyOf(user), System.nanoTime());
+
+        synchronized (entries) {
+            entries.put(user.getUsername(), entry);
+        }
+    }
+
+    @Override
+    public void removeUserFromCache(String username) {
+
+        synchronized (entries) {
+            entries.remove(username);
+        }
+    }
+
+    public void clear() {
+
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    private static UserDetails copyOf(UserDetails user) {
+        return User.withUserDetails(user).build();
+    }
+
+    private record Entry(UserDetails user, long cachedAt) {
+    }
+}
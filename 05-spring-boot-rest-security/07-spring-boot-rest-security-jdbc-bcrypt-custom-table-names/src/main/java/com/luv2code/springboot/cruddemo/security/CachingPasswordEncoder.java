@@ -0,0 +1,127 @@
+package com.luv2code.springboot.cruddemo.security;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@link PasswordEncoder} that remembers successful {@link #matches} results for a short time.
+ *
+ * HTTP Basic sends the password on every request, and checking it against a BCrypt hash
+ * is deliberately slow. After the first successful check, the same password against the
+ * same stored hash is accepted from memory until the entry expires.
+ *
+ * Nothing secret is kept. The cache key is an HMAC of the stored hash and the raw password,
+ * made with a random key that only exists in this process. Failed checks are never cached.
+ *
+ * The stored hash is part of the key, so a password change (new hash) misses straight away.
+ * Disabled or locked users are rejected by the authentication provider before the password
+ * is checked, so they never get here.
+ */
+public class CachingPasswordEncoder implements PasswordEncoder {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final PasswordEncoder delegate;
+
+    private final SecretKeySpec secretKey;
+
+    private final long ttlNanos;
+
+    private final Map<String, Long> verified;
+
+    public CachingPasswordEncoder(PasswordEncoder delegate, int maxSize, Duration ttl) {
+
+        this.delegate = delegate;
+        this.ttlNanos = ttl.toNanos();
+
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        secretKey = new SecretKeySpec(secret, HMAC_ALGORITHM);
+
+        verified = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+
+        if (rawPassword == null || encodedPassword == null) {
+            return delegate.matches(rawPassword, encodedPassword);
+        }
+
+        String key = keyFor(rawPassword, encodedPassword);
+        long now = System.nanoTime();
+
+        synchronized (verified) {
+            Long verifiedAt = verified.get(key);
+
+            if (verifiedAt != null) {
+                if (now - verifiedAt <= ttlNanos) {
+                    return true;
+                }
+                verified.remove(key);
+            }
+        }
+
+        // the slow part ... done outside the lock
+
+        boolean matches = delegate.matches(rawPassword, encodedPassword);
+
+        if (matches) {
+            synchronized (verified) {
+                verified.put(key, now);
+            }
+        }
+
+        return matches;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    public void clear() {
+
+        synchronized (verified) {
+            verified.clear();
+        }
+    }
+
+    private String keyFor(CharSequence rawPassword, String encodedPassword) {
+
+        try {
+            // Mac instances are not thread-safe and cheap to create
+
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(secretKey);
+
+            mac.update(encodedPassword.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            mac.update(rawPassword.toString().getBytes(StandardCharsets.UTF_8));
+
+            return Base64.getEncoder().encodeToString(mac.doFinal());
+        }
+        catch (GeneralSecurityException exc) {
+            throw new IllegalStateException("Could not compute " + HMAC_ALGORITHM, exc);
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package com.luv2code.springboot.cruddemo.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.RequestPath;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Authorization rules compiled into a path-segment trie.
+ *
+ * Gives the same answer as a list of {@code requestMatchers(...)} rules checked in order
+ * (first match wins), but finds the matching rule by walking the request path once,
+ * instead of testing every rule. The cost depends on the depth of the path, not on the
+ * number of rules.
+ *
+ * The trie understands literal segments, {@code *} and a trailing {@code **}. Any other
+ * pattern syntax ({@code {id}}, {@code a*b}, ...) is kept in a short ordered list and
+ * checked with the regular Spring Security matcher. The same goes for request paths
+ * with empty segments (other than a single trailing slash).
+ */
+public class CompiledRequestAuthorizationManager implements AuthorizationManager<RequestAuthorizationContext> {
+
+    private static final AuthorizationDecision DENY = new AuthorizationDecision(false);
+
+    private final List<Rule> rules;
+
+    private final Node root;
+
+    private final List<Rule> fallbackRules;
+
+    private CompiledRequestAuthorizationManager(List<Rule> rules) {
+
+        this.rules = List.copyOf(rules);
+        this.root = new Node();
+        this.fallbackRules = new ArrayList<>();
+
+        for (Rule rule : this.rules) {
+            List<String> segments = trieSegments(rule.pattern());
+
+            if (segments == null) {
+                fallbackRules.add(rule);
+            }
+            else {
+                root.insert(segments, 0, rule);
+            }
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public AuthorizationResult authorize(Supplier<? extends Authentication> authentication,
+                                         RequestAuthorizationContext context) {
+
+        int ruleIndex = findRuleIndex(context.getRequest());
+
+        if (ruleIndex < 0) {
+            return DENY;
+        }
+
+        return rules.get(ruleIndex).manager().authorize(authentication, context);
+    }
+
+    // index of the first rule (in declaration order) that matches the request, or -1
+
+    int findRuleIndex(HttpServletRequest request) {
+
+        HttpMethod method = HttpMethod.valueOf(request.getMethod());
+        List<String> segments = requestSegments(request);
+
+        if (segments == null) {
+            return findRuleIndexInOrder(request, rules, Integer.MAX_VALUE);
+        }
+
+        int[] best = { Integer.MAX_VALUE };
+        root.match(segments, 0, method, best);
+
+        int fallbackIndex = findRuleIndexInOrder(request, fallbackRules, best[0]);
+
+        if (fallbackIndex >= 0) {
+            return fallbackIndex;
+        }
+
+        return (best[0] == Integer.MAX_VALUE) ? -1 : best[0];
+    }
+
+    private static int findRuleIndexInOrder(HttpServletRequest request, List<Rule> candidates, int before) {
+
+        for (Rule rule : candidates) {
+            if (rule.index() >= before) {
+                break;
+            }
+            if (rule.requestMatcher().matches(request)) {
+                return rule.index();
+            }
+        }
+
+        return -1;
+    }
+
+    // "/api/employees/**" -> [api, employees, **] ... or null if the trie can't take the pattern
+
+    private static List<String> trieSegments(String pattern) {
+
+        if (!pattern.startsWith("/")) {
+            return null;
+        }
+
+        String[] parts = pattern.substring(1).split("/", -1);
+
+        for (int i = 0; i < parts.length; i++) {
+            String part = parts[i];
+            boolean last = (i == parts.length - 1);
+
+            if (part.equals("**")) {
+                if (!last) {
+                    return null;
+                }
+            }
+            else if (part.isEmpty()) {
+                // only allowed as a trailing slash, e.g. "/" or "/api/"
+                if (!last) {
+                    return null;
+                }
+            }
+            else if (!part.equals("*") && containsPatternSyntax(part)) {
+                return null;
+            }
+        }
+
+        return List.of(parts);
+    }
+
+    private static boolean containsPatternSyntax(String part) {
+
+        for (int i = 0; i < part.length(); i++) {
+            char c = part.charAt(i);
+            if (c == '*' || c == '?' || c == '{' || c == '}' || c == '%' || c == '\\') {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    // "/api/employees/3" -> [api, employees, 3] and "/" -> [""] ... or null for unusual paths
+
+    private static List<String> requestSegments(HttpServletRequest request) {
+
+        List<PathContainer.Element> elements = pathWithinApplication(request).elements();
+
+        if (elements.isEmpty()) {
+            return null;
+        }
+
+        List<String> segments = new ArrayList<>(elements.size() / 2 + 1);
+
+        for (int i = 0; i < elements.size(); i++) {
+            if (!(elements.get(i) instanceof PathContainer.Separator)) {
+                return null;
+            }
+
+            if (i + 1 < elements.size() && elements.get(i + 1) instanceof PathContainer.PathSegment segment) {
+                segments.add(segment.valueToMatch());
+                i++;
+            }
+            else if (i + 1 == elements.size()) {
+                segments.add("");
+            }
+            else {
+                // "//" in the middle of the path
+                return null;
+            }
+        }
+
+        return segments;
+    }
+
+    // same path the Spring Security matchers look at
+
+    private static PathContainer pathWithinApplication(HttpServletRequest request) {
+
+        RequestPath path;
+
+        if (ServletRequestPathUtils.hasParsedRequestPath(request)) {
+            path = ServletRequestPathUtils.getParsedRequestPath(request);
+        }
+        else {
+            path = ServletRequestPathUtils.parseAndCache(request);
+            ServletRequestPathUtils.clearParsedRequestPath(request);
+        }
+
+        return path.pathWithinApplication();
+    }
+
+    private record Rule(int index, HttpMethod method, String pattern,
+                        AuthorizationManager<RequestAuthorizationContext> manager,
+                        RequestMatcher requestMatcher) {
+
+        boolean matchesMethod(HttpMethod requestMethod) {
+            return method == null || method.equals(requestMethod);
+        }
+    }
+
+    private static final class Node {
+
+        private final Map<String, Node> literalChildren = new HashMap<>();
+
+        private Node starChild;
+
+        // rules whose pattern ends at this node, and rules ending in "**" here ... in declaration order
+        private final List<Rule> terminalRules = new ArrayList<>();
+
+        private final List<Rule> doubleStarRules = new ArrayList<>();
+
+        void insert(List<String> segments, int position, Rule rule) {
+
+            if (position == segments.size()) {
+                terminalRules.add(rule);
+                return;
+            }
+
+            String segment = segments.get(position);
+
+            if (segment.equals("**")) {
+                doubleStarRules.add(rule);
+            }
+            else if (segment.equals("*")) {
+                if (starChild == null) {
+                    starChild = new Node();
+                }
+                starChild.insert(segments, position + 1, rule);
+            }
+            else {
+                literalChildren.computeIfAbsent(segment, key -> new Node())
+                        .insert(segments, position + 1, rule);
+            }
+        }
+
+        void match(List<String> segments, int position, HttpMethod method, int[] best) {
+
+            // "**" matches whatever is left, including nothing
+            firstMatching(doubleStarRules, method, best);
+
+            if (position == segments.size()) {
+                firstMatching(terminalRules, method, best);
+                return;
+            }
+
+            String segment = segments.get(position);
+
+            Node literalChild = literalChildren.get(segment);
+
+            if (literalChild != null) {
+                literalChild.match(segments, position + 1, method, best);
+            }
+
+            if (starChild != null) {
+                if (!segment.isEmpty()) {
+                    starChild.match(segments, position + 1, method, best);
+                }
+                else if (position == segments.size() - 1) {
+                    // a trailing "*" also matches a trailing slash ("/api/*" matches "/api/")
+                    firstMatching(starChild.terminalRules, method, best);
+                }
+            }
+        }
+
+        private static void firstMatching(List<Rule> candidates, HttpMethod method, int[] best) {
+
+            for (Rule rule : candidates) {
+                if (rule.index() >= best[0]) {
+                    return;
+                }
+                if (rule.matchesMethod(method)) {
+                    best[0] = rule.index();
+                    return;
+                }
+            }
+        }
+    }
+
+    public static final class Builder {
+
+        private final List<Rule> rules = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        public Builder rule(String pattern, AuthorizationManager<RequestAuthorizationContext> manager) {
+            return rule(null, pattern, manager);
+        }
+
+        public Builder rule(HttpMethod method, String pattern,
+                            AuthorizationManager<RequestAuthorizationContext> manager) {
+
+            RequestMatcher requestMatcher = PathPatternRequestMatcher.withDefaults().matcher(method, pattern);
+
+            rules.add(new Rule(rules.size(), method, pattern, manager, requestMatcher));
+
+            return this;
+        }
+
+        // everything not matched by an earlier rule ... without it, unmatched requests are denied
+
+        public Builder anyRequest(AuthorizationManager<RequestAuthorizationContext> manager) {
+            return rule(null, "/**", manager);
+        }
+
+        public CompiledRequestAuthorizationManager build() {
+            return new CompiledRequestAuthorizationManager(rules);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.luv2code.springboot.cruddemo.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Approximate event counts per key over a sliding time window, in fixed memory.
+ *
+ * A count-min sketch: each key maps to one cell in each of {@code depth} rows, an event
+ * increments those cells, and the estimate is the smallest of them. Estimates can be a
+ * little high (keys sharing cells) but never low. Memory is depth x width counters,
+ * however many distinct keys show up, so a flood of random usernames or IP addresses
+ * can't grow it.
+ *
+ * Counts decay with two generations of counters. Every {@code window} the current
+ * generation becomes the previous one, and the previous one is weighted down as the
+ * new window goes on. Cells are updated with atomic increments, no locks.
+ *
+ * Keys are hashed with a random per-process seed, so collisions can't be planned ahead.
+ */
+public class DecayingCountMinSketch {
+
+    private final int depth;
+
+    private final int width;
+
+    private final long windowNanos;
+
+    private final long seed = new SecureRandom().nextLong();
+
+    private final LongSupplier nanoClock;
+
+    private final AtomicReference<Generations> generations;
+
+    public DecayingCountMinSketch(int depth, int width, Duration window) {
+        this(depth, width, window, System::nanoTime);
+    }
+
+    // for tests ... a clock that can be moved by hand
+
+    DecayingCountMinSketch(int depth, int width, Duration window, LongSupplier nanoClock) {
+
+        this.nanoClock = nanoClock;
+        this.depth = depth;
+        this.width = width;
+        this.windowNanos = window.toNanos();
+
+        generations = new AtomicReference<>(new Generations(
+                new AtomicLongArray(depth * width), new AtomicLongArray(depth * width), nanoClock.getAsLong()));
+    }
+
+    public void increment(String key) {
+
+        Generations current = currentGenerations();
+        long hash = hash(key);
+
+        for (int row = 0; row < depth; row++) {
+            current.current().incrementAndGet(cell(hash, row));
+        }
+    }
+
+    public long estimate(String key) {
+
+        Generations current = currentGenerations();
+        long hash = hash(key);
+
+        // the previous window counts less the further we are into the current one
+        double elapsed = (double) (nanoClock.getAsLong() - current.startedAt()) / windowNanos;
+        double previousWeight = Math.max(0.0, 1.0 - elapsed);
+
+        long estimate = Long.MAX_VALUE;
+
+        for (int row = 0; row < depth; row++) {
+            int cell = cell(hash, row);
+            long count = current.current().get(cell) + Math.round(current.previous().get(cell) * previousWeight);
+            estimate = Math.min(estimate, count);
+        }
+
+        return estimate;
+    }
+
+    private Generations currentGenerations() {
+
+        Generations current = generations.get();
+        long now = nanoClock.getAsLong();
+
+        while (now - current.startedAt() >= windowNanos) {
+
+            // a whole window without activity ... nothing worth keeping
+            AtomicLongArray previous = (now - current.startedAt() >= 2 * windowNanos)
+                    ? new AtomicLongArray(depth * width)
+                    : current.current();
+
+            Generations rotated = new Generations(new AtomicLongArray(depth * width), previous, now);
+
+            if (generations.compareAndSet(current, rotated)) {
+                return rotated;
+            }
+
+            current = generations.get();
+        }
+
+        return current;
+    }
+
+    // two independent hashes combined per row (Kirsch-Mitzenmacher)
+
+    private int cell(long hash, int row) {
+
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+
+        return row * width + Math.floorMod(h1 + row * h2, width);
+    }
+
+    private long hash(String key) {
+
+        // seeded FNV-1a, then a final mix
+        long hash = 0xcbf29ce484222325L ^ seed;
+
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+
+        return hash;
+    }
+
+    private record Generations(AtomicLongArray current, AtomicLongArray previous, long startedAt) {
+    }
+}
@@ -1,23 +1,77 @@
 package com.luv2code.springboot.cruddemo.security;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.security.crypto.scrypt.SCryptPasswordEncoder;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
 import org.springframework.security.provisioning.JdbcUserDetailsManager;
 import org.springframework.security.provisioning.UserDetailsManager;
+import org.springframework.security.web.FilterChainProxy;
+import org.springframework.security.web.ObservationFilterChainDecorator;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.security.authorization.AuthenticatedAuthorizationManager.authenticated;
+import static org.springframework.security.authorization.AuthorityAuthorizationManager.hasRole;
 
 @Configuration
 public class DemoSecurityConfig {
 
+    // write queries for the custom members/roles tables ... shared by the user manager and bulk provisioning
+
+    private static final String CREATE_USER_SQL =
+            "insert into members (user_id, pw, active) values (?,?,?)";
+
+    private static final String CREATE_AUTHORITY_SQL =
+            "insert into roles (user_id, role) values (?,?)";
+
+    // cache users between requests ... HTTP Basic sends credentials on every call
+
+    @Bean
+    public BoundedUserCache userCache(@Value("${security.user-cache.max-size:10000}") int maxSize,
+                                      @Value("${security.user-cache.ttl:5m}") Duration ttl) {
+
+        return new BoundedUserCache(maxSize, ttl);
+    }
+
     // add support for JDBC ... no more hardcoded users :-)
 
     @Bean
-    public UserDetailsManager userDetailsManager(DataSource dataSource) {
+    public JdbcUserDetailsManager userDetailsManager(DataSource dataSource, BoundedUserCache userCache) {
 
         JdbcUserDetailsManager jdbcUserDetailsManager = new JdbcUserDetailsManager(dataSource);
 
@@ -29,25 +83,272 @@ public class DemoSecurityConfig {
         jdbcUserDetailsManager.setAuthoritiesByUsernameQuery(
                 "select user_id, role from roles where user_id=?");
 
+        // define the write queries too ... the defaults point at the users/authorities tables
+
+        jdbcUserDetailsManager.setUserExistsSql(
+                "select user_id from members where user_id=?");
+
+        jdbcUserDetailsManager.setCreateUserSql(CREATE_USER_SQL);
+
+        jdbcUserDetailsManager.setUpdateUserSql(
+                "update members set pw=?, active=? where user_id=?");
+
+        jdbcUserDetailsManager.setDeleteUserSql(
+                "delete from members where user_id=?");
+
+        jdbcUserDetailsManager.setChangePasswordSql(
+                "update members set pw=? where user_id=?");
+
+        jdbcUserDetailsManager.setCreateAuthoritySql(CREATE_AUTHORITY_SQL);
+
+        jdbcUserDetailsManager.setDeleteUserAuthoritiesSql(
+                "delete from roles where user_id=?");
+
+        // updateUser, deleteUser and changePassword evict the user from this cache
+        // (createUser has nothing to evict ... unknown users are never cached)
+
+        jdbcUserDetailsManager.setUserCache(userCache);
+
         return jdbcUserDetailsManager;
     }
 
+    // remember successful password checks for a short time ... saves a BCrypt check per request
+
+    @Bean
+    public PasswordEncoder passwordEncoder(@Value("${security.verified-credentials.max-size:10000}") int maxSize,
+                                           @Value("${security.verified-credentials.ttl:60s}") Duration ttl,
+                                           @Value("${security.password.encoding-id:bcrypt}") String encodingId,
+                                           @Value("${security.password.bcrypt-strength:10}") int bcryptStrength) {
+
+        return new CachingPasswordEncoder(delegatingPasswordEncoder(encodingId, bcryptStrength), maxSize, ttl);
+    }
+
+    // new passwords use security.password.encoding-id ... any other encoding (or a lower BCrypt cost)
+    // is still accepted, but gets upgraded
+
+    private static PasswordEncoder delegatingPasswordEncoder(String encodingId, int bcryptStrength) {
+
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", new BCryptPasswordEncoder(bcryptStrength));
+        encoders.put("argon2@SpringSecurity_v5_8", Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        encoders.put("pbkdf2@SpringSecurity_v5_8", Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        encoders.put("scrypt@SpringSecurity_v5_8", SCryptPasswordEncoder.defaultsForSpringSecurity_v5_8());
+
+        if (!encoders.containsKey(encodingId)) {
+            throw new IllegalArgumentException("security.password.encoding-id must be one of " + encoders.keySet());
+        }
+
+        DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder(encodingId, encoders);
+
+        // every other id Spring Security knows ({noop}, {pbkdf2}, {scrypt}, {argon2}, {sha256}, ...) still
+        // matches, through the standard encoder ... and is upgraded on the next login
+        passwordEncoder.setDefaultPasswordEncoderForMatches(PasswordEncoderFactories.createDelegatingPasswordEncoder());
+
+        return passwordEncoder;
+    }
+
+    // re-hash outdated passwords after login ... on a small pool, so the login isn't slowed down
+
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor passwordUpgradeExecutor() {
+
+        return new ThreadPoolExecutor(1, 2, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(100));
+    }
+
+    @Bean
+    public JdbcUserPasswordService userPasswordService(DataSource dataSource, BoundedUserCache userCache) {
+
+        return new JdbcUserPasswordService(dataSource, userCache);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "security.password.report-on-startup", havingValue = "true", matchIfMissing = true)
+    public PasswordEncodingReport passwordEncodingReport(DataSource dataSource, PasswordEncoder passwordEncoder) {
+
+        return new PasswordEncodingReport(dataSource, passwordEncoder);
+    }
+
+    // create many users at once ... passwords hashed in parallel, rows written with JDBC batches
+
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor provisioningExecutor() {
+
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        // when the queue is full, the caller hashes too ... slows the request down instead of failing it
+        return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(threads * 4),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Bean
+    public JdbcBulkUserProvisioner bulkUserProvisioner(DataSource dataSource,
+                                                       TransactionTemplate transactionTemplate,
+                                                       PasswordEncoder passwordEncoder,
+                                                       ThreadPoolExecutor provisioningExecutor,
+                                                       @Value("${security.provisioning.chunk-size:500}") int chunkSize) {
+
+        return new JdbcBulkUserProvisioner(dataSource, transactionTemplate, passwordEncoder, provisioningExecutor,
+                chunkSize, "select user_id from members where user_id in (%s)", CREATE_USER_SQL, CREATE_AUTHORITY_SQL);
+    }
+
+    // the authentication provider checks the cache before running the members/roles queries
+    //
+    // ... and before that, rejects usernames/addresses with too many recent failed logins
+
+    @Bean
+    public ThrottlingAuthenticationProvider authenticationProvider(
+            UserDetailsManager userDetailsManager,
+            BoundedUserCache userCache,
+            PasswordEncoder passwordEncoder,
+            JdbcUserPasswordService userPasswordService,
+            ThreadPoolExecutor passwordUpgradeExecutor,
+            @Value("${security.login-throttle.window:15m}") Duration throttleWindow,
+            @Value("${security.login-throttle.max-failures-per-user:10}") long maxFailuresPerUser,
+            @Value("${security.login-throttle.max-failures-per-address:50}") long maxFailuresPerAddress) {
+
+        DaoAuthenticationProvider authenticationProvider = new UpgradingDaoAuthenticationProvider(
+                userDetailsManager, passwordEncoder, userPasswordService, passwordUpgradeExecutor);
+
+        authenticationProvider.setUserCache(userCache);
+
+        return new ThrottlingAuthenticationProvider(authenticationProvider, throttleWindow,
+                maxFailuresPerUser, maxFailuresPerAddress);
+    }
+
+    @Bean
+    public MeterBinder loginThrottleMetrics(ThrottlingAuthenticationProvider authenticationProvider) {
+
+        return registry ->
+                FunctionCounter.builder("security.login.throttled", authenticationProvider,
+                                ThrottlingAuthenticationProvider::getRejectedCount)
+                        .register(registry);
+    }
+
+    // expose cache hits/misses/size on /actuator/metrics
+
+    @Bean
+    public MeterBinder userCacheMetrics(BoundedUserCache userCache) {
+
+        return registry -> {
+            FunctionCounter.builder("security.user.cache.gets", userCache, BoundedUserCache::getHitCount)
+                    .tag("result", "hit")
+                    .register(registry);
+
+            FunctionCounter.builder("security.user.cache.gets", userCache, BoundedUserCache::getMissCount)
+                    .tag("result", "miss")
+                    .register(registry);
+
+            Gauge.builder("security.user.cache.size", userCache, BoundedUserCache::size)
+                    .register(registry);
+        };
+    }
+
+    // time each security filter for a sample of the requests ... security.filter / security.filterchain
+
+    @Bean
+    public static BeanPostProcessor securityFilterTimingPostProcessor(
+            ObjectProvider<MeterRegistry> meterRegistry,
+            ObjectProvider<ObservationRegistry> observationRegistry,
+            @Value("${security.filter-metrics.sample-rate:0}") double sampleRate) {
+
+        return new BeanPostProcessor() {
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+
+                // sampling off ... leave the filter chain exactly as it is
+
+                if (bean instanceof FilterChainProxy filterChainProxy && sampleRate > 0) {
+
+                    // FilterChainProxy has no getter for its decorator ... wrap the one WebSecurity
+                    // sets, so the security observations keep working
+                    ObservationRegistry registry = observationRegistry.getIfUnique(() -> ObservationRegistry.NOOP);
+
+                    FilterChainProxy.FilterChainDecorator existing = registry.isNoop()
+                            ? new FilterChainProxy.VirtualFilterChainDecorator()
+                            : new ObservationFilterChainDecorator(registry);
+
+                    filterChainProxy.setFilterChainDecorator(
+                            new TimedFilterChainDecorator(existing, meterRegistry.getObject(), sampleRate));
+                }
+
+                return bean;
+            }
+        };
+    }
+
+    // signed tokens ... an alternative to sending the password on every request
+
+    @Bean
+    public TokenDenyList tokenDenyList() {
+
+        return new TokenDenyList();
+    }
+
+    @Bean
+    public TokenService tokenService(TokenDenyList tokenDenyList,
+                                     @Value("${security.token.access-ttl:15m}") Duration accessTokenTtl,
+                                     @Value("${security.token.refresh-ttl:8h}") Duration refreshTokenTtl) {
+
+        return new TokenService(tokenDenyList, accessTokenTtl, refreshTokenTtl);
+    }
+
+    @Bean
+    public JwtDecoder jwtDecoder(TokenService tokenService) {
+
+        return tokenService.getAccessTokenDecoder();
+    }
+
+    // read the roles straight from the token ... no members/roles queries
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public JwtAuthenticationConverter jwtAuthenticationConverter() {
+
+        JwtGrantedAuthoritiesConverter authoritiesConverter = new JwtGrantedAuthoritiesConverter();
+
+        // roles are stored with their "ROLE_" prefix already
+        authoritiesConverter.setAuthoritiesClaimName(TokenService.ROLES_CLAIM);
+        authoritiesConverter.setAuthorityPrefix("");
+
+        JwtAuthenticationConverter authenticationConverter = new JwtAuthenticationConverter();
+        authenticationConverter.setJwtGrantedAuthoritiesConverter(authoritiesConverter);
+
+        return authenticationConverter;
+    }
+
+
+    @Bean
+    public SecurityFilterChain filterChain(HttpSecurity http,
+                                           JwtAuthenticationConverter jwtAuthenticationConverter) throws Exception {
+
+        // same rules as a list of requestMatchers(...), first match wins ...
+        // but compiled into a lookup, so the number of rules doesn't slow down each request
+
+        CompiledRequestAuthorizationManager authorizationManager = CompiledRequestAuthorizationManager.builder()
+                .rule(HttpMethod.POST, "/api/auth/login", passwordLogin())
+                .rule(HttpMethod.POST, "/api/auth/refresh", permitAll())
+                .rule(HttpMethod.POST, "/api/auth/logout", authenticated())
+                .rule(HttpMethod.GET, "/api/employees", hasRole("EMPLOYEE"))
+                .rule(HttpMethod.GET, "/api/employees/**", hasRole("EMPLOYEE"))
+                .rule(HttpMethod.POST, "/api/employees", hasRole("MANAGER"))
+                .rule(HttpMethod.PUT, "/api/employees", hasRole("MANAGER"))
+                .rule(HttpMethod.DELETE, "/api/employees/**", hasRole("ADMIN"))
+                .rule(HttpMethod.POST, "/api/users/bulk", hasRole("ADMIN"))
+                .rule("/actuator/**", hasRole("ADMIN"))
+                .build();
 
         http.authorizeHttpRequests(configurer ->
                 configurer
-                        .requestMatchers(HttpMethod.GET, "/api/employees").hasRole("EMPLOYEE")
-                        .requestMatchers(HttpMethod.GET, "/api/employees/**").hasRole("EMPLOYEE")
-                        .requestMatchers(HttpMethod.POST, "/api/employees").hasRole("MANAGER")
-                        .requestMatchers(HttpMethod.PUT, "/api/employees").hasRole("MANAGER")
-                        .requestMatchers(HttpMethod.DELETE, "/api/employees/**").hasRole("ADMIN")
+                        .anyRequest().access(authorizationManager)
         );
 
         // use HTTP Basic authentication
         http.httpBasic(Customizer.withDefaults());
 
+        // ... or a token from /api/auth/login: "Authorization: Bearer <token>"
+        http.oauth2ResourceServer(oauth2 ->
+                oauth2.jwt(jwt -> jwt.jwtAuthenticationConverter(jwtAuthenticationConverter)));
+
         // disable Cross Site Request Forgery (CSRF)
         // in general, not required for stateless REST APIs that use POST, PUT, DELETE and/or PATCH
         http.csrf(csrf -> csrf.disable());
@@ -55,6 +356,21 @@ public class DemoSecurityConfig {
         return http.build();
     }
 
+    private static AuthorizationManager<RequestAuthorizationContext> permitAll() {
+        return (authentication, context) -> new AuthorizationDecision(true);
+    }
+
+    // tokens are only issued for a password (HTTP Basic) login ... a Bearer token can't renew itself
+
+    private static AuthorizationManager<RequestAuthorizationContext> passwordLogin() {
+        return (authentication, context) -> {
+            Authentication theAuthentication = authentication.get();
+
+            return new AuthorizationDecision(theAuthentication instanceof UsernamePasswordAuthenticationToken
+                    && theAuthentication.isAuthenticated());
+        };
+    }
+
 
 /*
     @Bean
@@ -0,0 +1,260 @@
+package com.luv2code.springboot.cruddemo.security;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Creates many users at once ... the bulk version of {@code UserDetailsManager.createUser}.
+ *
+ * Accounts are handled in chunks. For each chunk, the passwords are hashed in parallel on
+ * the given (bounded) executor, then the users and their roles are written with two JDBC
+ * batch inserts in one transaction. A password the encoder rejects (BCrypt refuses more
+ * than 72 bytes) only marks that account as invalid; the rest of the chunk goes ahead.
+ * A failing insert rolls back its chunk on its own; the chunks before it stay committed.
+ *
+ * Uses the same custom SQL (members/roles tables) as the {@code JdbcUserDetailsManager}
+ * in {@link DemoSecurityConfig}, and reports an outcome for every requested account.
+ * Database errors are logged here; the outcomes only say that the chunk was rolled back.
+ */
+public class JdbcBulkUserProvisioner {
+
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    public enum Status { CREATED, ALREADY_EXISTS, DUPLICATE_IN_REQUEST, INVALID, FAILED }
+
+    public record NewAccount(String username, String password, List<String> roles) {
+    }
+
+    public record Outcome(String username, Status status, String message) {
+    }
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final PasswordEncoder passwordEncoder;
+
+    private final Executor hashingExecutor;
+
+    private final int chunkSize;
+
+    private final String findExistingUsersSql;
+
+    private final String createUserSql;
+
+    private final String createAuthoritySql;
+
+    /**
+     * @param findExistingUsersSql select of the usernames that already exist, with a single
+     *                             "%s" where the list of "?" placeholders goes
+     */
+    public JdbcBulkUserProvisioner(DataSource dataSource, TransactionTemplate transactionTemplate,
+                                   PasswordEncoder passwordEncoder, Executor hashingExecutor, int chunkSize,
+                                   String findExistingUsersSql, String createUserSql, String createAuthoritySql) {
+
+        this(new JdbcTemplate(dataSource), transactionTemplate, passwordEncoder, hashingExecutor, chunkSize,
+                findExistingUsersSql, createUserSql, createAuthoritySql);
+    }
+
+    JdbcBulkUserProvisioner(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                            PasswordEncoder passwordEncoder, Executor hashingExecutor, int chunkSize,
+                            String findExistingUsersSql, String createUserSql, String createAuthoritySql) {
+
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.passwordEncoder = passwordEncoder;
+        this.hashingExecutor = hashingExecutor;
+        this.chunkSize = chunkSize;
+        this.findExistingUsersSql = findExistingUsersSql;
+        this.createUserSql = createUserSql;
+        this.createAuthoritySql = createAuthoritySql;
+    }
+
+    /**
+     * Creates the accounts, and returns one outcome per account, in the order given.
+     */
+    public List<Outcome> createUsers(List<NewAccount> accounts) {
+
+        Outcome[] outcomes = new Outcome[accounts.size()];
+        List<Integer> valid = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+
+        for (int i = 0; i < accounts.size(); i++) {
+            NewAccount account = accounts.get(i);
+
+            if (account == null) {
+                outcomes[i] = new Outcome(null, Status.INVALID, "account is missing");
+            }
+            else if (isBlank(account.username()) || isBlank(account.password())
+                    || account.roles() == null || account.roles().isEmpty()
+                    || account.roles().stream().anyMatch(JdbcBulkUserProvisioner::isBlank)) {
+
+                outcomes[i] = new Outcome(account.username(), Status.INVALID,
+                        "username, password and at least one role are required");
+            }
+            else if (!seen.add(account.username())) {
+                outcomes[i] = new Outcome(account.username(), Status.DUPLICATE_IN_REQUEST,
+                        "username appears more than once in the request");
+            }
+            else {
+                valid.add(i);
+            }
+        }
+
+        for (int from = 0; from < valid.size(); from += chunkSize) {
+            List<Integer> chunk = valid.subList(from, Math.min(from + chunkSize, valid.size()));
+
+            createChunk(accounts, chunk, outcomes);
+        }
+
+        return Arrays.asList(outcomes);
+    }
+
+    private void createChunk(List<NewAccount> accounts, List<Integer> chunk, Outcome[] outcomes) {
+
+        List<Integer> toCreate = new ArrayList<>(chunk.size());
+
+        try {
+            Set<String> existing = findExistingUsernames(accounts, chunk);
+
+            for (int i : chunk) {
+                if (existing.contains(accounts.get(i).username())) {
+                    outcomes[i] = new Outcome(accounts.get(i).username(), Status.ALREADY_EXISTS,
+                            "user already exists");
+                }
+                else {
+                    toCreate.add(i);
+                }
+            }
+
+            if (toCreate.isEmpty()) {
+                return;
+            }
+
+            List<String> hashes = hashPasswords(accounts, toCreate, outcomes);
+
+            // accounts whose password could not be hashed already have their outcome
+            toCreate.removeIf(i -> outcomes[i] != null);
+
+            if (toCreate.isEmpty()) {
+                return;
+            }
+
+            List<NewAccount> newAccounts = toCreate.stream().map(accounts::get).toList();
+
+            transactionTemplate.executeWithoutResult(status -> insert(newAccounts, hashes));
+        }
+        catch (DataAccessException exc) {
+
+            // the driver's message can name tables and constraints ... keep it in the server log
+            logger.log(Level.WARNING, "Bulk user chunk of " + chunk.size() + " account(s) rolled back", exc);
+
+            String message = "chunk rolled back: database error";
+
+            for (int i : chunk) {
+                if (outcomes[i] == null) {
+                    outcomes[i] = new Outcome(accounts.get(i).username(), Status.FAILED, message);
+                }
+            }
+
+            return;
+        }
+
+        for (int i : toCreate) {
+            outcomes[i] = new Outcome(accounts.get(i).username(), Status.CREATED, null);
+        }
+    }
+
+    // hashing is the slow part ... spread it over the pool. Each account is encoded on its
+    // own, so a password the encoder rejects is reported as INVALID for that account only.
+    // Returns the hashes of the accounts that passed, in the order of the indexes given
+
+    private List<String> hashPasswords(List<NewAccount> accounts, List<Integer> indexes, Outcome[] outcomes) {
+
+        List<CompletableFuture<String>> futures = new ArrayList<>(indexes.size());
+
+        for (int i : indexes) {
+            String password = accounts.get(i).password();
+
+            futures.add(CompletableFuture.supplyAsync(() -> passwordEncoder.encode(password), hashingExecutor));
+        }
+
+        List<String> hashes = new ArrayList<>(futures.size());
+
+        for (int n = 0; n < futures.size(); n++) {
+            int i = indexes.get(n);
+
+            try {
+                hashes.add(futures.get(n).join());
+            }
+            catch (CompletionException exc) {
+
+                // the encoder says what is wrong with the password (e.g. too long for BCrypt) ...
+                // anything else stays in the server log
+                String message = "password rejected";
+
+                if (exc.getCause() instanceof IllegalArgumentException rejected) {
+                    message += ": " + rejected.getMessage();
+                }
+                else {
+                    logger.log(Level.WARNING, "Could not encode the password of " + accounts.get(i).username(), exc);
+                }
+
+                outcomes[i] = new Outcome(accounts.get(i).username(), Status.INVALID, message);
+            }
+        }
+
+        return hashes;
+    }
+
+    private Set<String> findExistingUsernames(List<NewAccount> accounts, List<Integer> chunk) {
+
+        String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+        Object[] usernames = chunk.stream().map(i -> accounts.get(i).username()).toArray();
+
+        return new HashSet<>(jdbcTemplate.queryForList(
+                String.format(findExistingUsersSql, placeholders), String.class, usernames));
+    }
+
+    private void insert(List<NewAccount> accounts, List<String> hashes) {
+
+        List<Object[]> userRows = new ArrayList<>(accounts.size());
+        List<Object[]> roleRows = new ArrayList<>();
+
+        for (int i = 0; i < accounts.size(); i++) {
+            NewAccount account = accounts.get(i);
+
+            userRows.add(new Object[] { account.username(), hashes.get(i), true });
+
+            for (String role : account.roles()) {
+                String authority = role.startsWith(ROLE_PREFIX) ? role : ROLE_PREFIX + role;
+
+                roleRows.add(new Object[] { account.username(), authority });
+            }
+        }
+
+        jdbcTemplate.batchUpdate(createUserSql, userRows);
+        jdbcTemplate.batchUpdate(createAuthoritySql, roleRows);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,45 @@
+package com.luv2code.springboot.cruddemo.security;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+
+import javax.sql.DataSource;
+
+/**
+ * Stores upgraded password hashes in the custom members table.
+ *
+ * The update only goes through if the stored hash is still the one the user logged in with,
+ * so a password change made in the meantime is never overwritten by an upgrade.
+ */
+public class JdbcUserPasswordService implements UserDetailsPasswordService {
+
+    private static final String UPDATE_PASSWORD_SQL =
+            "update members set pw=? where user_id=? and pw=?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final UserCache userCache;
+
+    public JdbcUserPasswordService(DataSource dataSource, UserCache userCache) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.userCache = userCache;
+    }
+
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+
+        int updated = jdbcTemplate.update(UPDATE_PASSWORD_SQL, newPassword, user.getUsername(), user.getPassword());
+
+        if (updated == 0) {
+            // the password was changed in the meantime ... keep the newer one
+            return user;
+        }
+
+        userCache.removeUserFromCache(user.getUsername());
+
+        return User.withUserDetails(user).password(newPassword).build();
+    }
+}
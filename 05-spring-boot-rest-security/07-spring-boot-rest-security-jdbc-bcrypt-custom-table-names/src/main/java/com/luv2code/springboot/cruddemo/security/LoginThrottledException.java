@@ -0,0 +1,10 @@
+package com.luv2code.springboot.cruddemo.security;
+
+import org.springframework.security.core.AuthenticationException;
+
+public class LoginThrottledException extends AuthenticationException {
+
+    public LoginThrottledException(String message) {
+        super(message);
+    }
+}
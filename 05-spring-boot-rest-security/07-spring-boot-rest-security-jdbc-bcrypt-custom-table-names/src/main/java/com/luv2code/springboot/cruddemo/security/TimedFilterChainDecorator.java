@@ -0,0 +1,204 @@
+package com.luv2code.springboot.cruddemo.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.web.FilterChainProxy;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every filter of the security filter chain, for a sample of the requests.
+ *
+ * For a sampled request, each filter's own time (without the filters after it and the
+ * controller) is recorded as security.filter, tagged with the filter and the outcome.
+ * The time of the whole chain, again without the controller, goes to security.filterchain.
+ *
+ * The outcome comes from the response: 401 is unauthenticated, 403 is denied, an exception
+ * is error, and anything else is granted. Filters that never ran, because one before them
+ * ended the request, aren't recorded.
+ *
+ * Wraps the decorator the chain would otherwise use (with observations on, Spring Security's
+ * ObservationFilterChainDecorator), so a sampled request still goes through it. Requests that
+ * aren't sampled go straight to it, at the cost of one random number.
+ */
+public class TimedFilterChainDecorator implements FilterChainProxy.FilterChainDecorator {
+
+    enum Outcome { GRANTED, DENIED, UNAUTHENTICATED, ERROR }
+
+    private static final Outcome[] OUTCOMES = Outcome.values();
+
+    private final FilterChainProxy.FilterChainDecorator delegate;
+
+    private final MeterRegistry meterRegistry;
+
+    private final double sampleRate;
+
+    private final Map<String, Timer[]> filterTimers = new ConcurrentHashMap<>();
+
+    private final Timer[] chainTimers;
+
+    public TimedFilterChainDecorator(FilterChainProxy.FilterChainDecorator delegate, MeterRegistry meterRegistry,
+                                     double sampleRate) {
+
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+        this.sampleRate = sampleRate;
+
+        chainTimers = timers("security.filterchain", null);
+    }
+
+    @Override
+    public FilterChain decorate(FilterChain original, List<Filter> filters) {
+
+        if (sampleRate <= 0 || (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return delegate.decorate(original, filters);
+        }
+
+        return new Sample(original, filters).chain;
+    }
+
+    // one per sampled request ... collects the times, and records them once the outcome is known
+
+    private final class Sample {
+
+        private final List<Filter> filters;
+
+        private final long[] ownNanos;
+
+        // filters run in order ... the ones from here on were never reached
+        private int executed;
+
+        private long applicationNanos;
+
+        private final FilterChain chain;
+
+        Sample(FilterChain original, List<Filter> filters) {
+
+            this.filters = filters;
+            this.ownNanos = new long[filters.size()];
+
+            List<Filter> timedFilters = new ArrayList<>(filters.size());
+
+            for (int i = 0; i < filters.size(); i++) {
+                int position = i;
+                timedFilters.add((request, response, next) -> doFilter(position, request, response, next));
+            }
+
+            FilterChain timedOriginal = (request, response) -> {
+                long start = System.nanoTime();
+
+                try {
+                    original.doFilter(request, response);
+                }
+                finally {
+                    applicationNanos += System.nanoTime() - start;
+                }
+            };
+
+            FilterChain decorated = delegate.decorate(timedOriginal, timedFilters);
+
+            this.chain = (request, response) -> {
+                long start = System.nanoTime();
+                Outcome outcome = Outcome.ERROR;
+
+                try {
+                    decorated.doFilter(request, response);
+                    outcome = outcome(response);
+                }
+                finally {
+                    record(outcome, System.nanoTime() - start);
+                }
+            };
+        }
+
+        private void doFilter(int position, ServletRequest request, ServletResponse response, FilterChain next)
+                throws IOException, ServletException {
+
+            executed = Math.max(executed, position + 1);
+
+            long[] downstreamNanos = new long[1];
+
+            FilterChain timedNext = (nextRequest, nextResponse) -> {
+                long start = System.nanoTime();
+
+                try {
+                    next.doFilter(nextRequest, nextResponse);
+                }
+                finally {
+                    downstreamNanos[0] += System.nanoTime() - start;
+                }
+            };
+
+            long start = System.nanoTime();
+
+            try {
+                filters.get(position).doFilter(request, response, timedNext);
+            }
+            finally {
+                ownNanos[position] += System.nanoTime() - start - downstreamNanos[0];
+            }
+        }
+
+        private void record(Outcome outcome, long chainNanos) {
+
+            for (int i = 0; i < executed; i++) {
+                filterTimers(filters.get(i))[outcome.ordinal()].record(ownNanos[i], TimeUnit.NANOSECONDS);
+            }
+
+            chainTimers[outcome.ordinal()].record(chainNanos - applicationNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static Outcome outcome(ServletResponse response) {
+
+        if (response instanceof HttpServletResponse httpResponse) {
+            return switch (httpResponse.getStatus()) {
+                case HttpServletResponse.SC_UNAUTHORIZED -> Outcome.UNAUTHENTICATED;
+                case HttpServletResponse.SC_FORBIDDEN -> Outcome.DENIED;
+                default -> Outcome.GRANTED;
+            };
+        }
+
+        return Outcome.GRANTED;
+    }
+
+    private Timer[] filterTimers(Filter filter) {
+
+        Class<?> filterClass = filter.getClass();
+        String name = filterClass.isAnonymousClass() ? filterClass.getName() : filterClass.getSimpleName();
+
+        return filterTimers.computeIfAbsent(name, key -> timers("security.filter", key));
+    }
+
+    private Timer[] timers(String name, String filter) {
+
+        Timer[] timers = new Timer[OUTCOMES.length];
+
+        for (Outcome outcome : OUTCOMES) {
+            Timer.Builder builder = Timer.builder(name)
+                    .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                    .publishPercentileHistogram();
+
+            if (filter != null) {
+                builder.tag("filter", filter);
+            }
+
+            timers[outcome.ordinal()] = builder.register(meterRegistry);
+        }
+
+        return timers;
+    }
+}
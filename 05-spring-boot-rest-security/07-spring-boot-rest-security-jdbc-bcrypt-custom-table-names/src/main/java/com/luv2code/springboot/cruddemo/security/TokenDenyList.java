@@ -0,0 +1,56 @@
+package com.luv2code.springboot.cruddemo.security;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory list of revoked token ids (the "jti" claim).
+ *
+ * An entry is only needed until the token would have expired anyway, so expired entries
+ * are purged as new ones come in. The list stays roughly as large as the number of tokens
+ * revoked within one token lifetime.
+ */
+public class TokenDenyList {
+
+    private static final int PURGE_EVERY = 256;
+
+    // jti -> expiry, in epoch seconds
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    private final AtomicInteger revocationsSincePurge = new AtomicInteger();
+
+    // true if this call revoked the token ... false if it was revoked already (or can't be)
+
+    public boolean revoke(String tokenId, Instant expiresAt) {
+
+        if (tokenId == null || expiresAt == null || expiresAt.isBefore(Instant.now())) {
+            return false;
+        }
+
+        boolean revokedNow = revoked.putIfAbsent(tokenId, expiresAt.getEpochSecond()) == null;
+
+        if (revokedNow && revocationsSincePurge.incrementAndGet() >= PURGE_EVERY) {
+            revocationsSincePurge.set(0);
+            purgeExpired();
+        }
+
+        return revokedNow;
+    }
+
+    public boolean isRevoked(String tokenId) {
+        return tokenId != null && revoked.containsKey(tokenId);
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    public void purgeExpired() {
+
+        long now = Instant.now().getEpochSecond();
+
+        revoked.values().removeIf(expiresAt -> expiresAt < now);
+    }
+}
@@ -0,0 +1,153 @@
+package com.luv2code.springboot.cruddemo.security;
+
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.*;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Issues and checks the signed tokens (JWTs) used instead of HTTP Basic.
+ *
+ * Tokens are signed with HS256 and a random key that only lives in this process,
+ * so checking a token needs no database lookup and no external identity provider.
+ * The flip side: all tokens become invalid when the application restarts.
+ *
+ * The user's roles travel in the "roles" claim, so the role rules in the filter chain
+ * work the same as with HTTP Basic.
+ */
+public class TokenService {
+
+    public static final String ROLES_CLAIM = "roles";
+
+    public static final String TOKEN_TYPE_CLAIM = "token_type";
+
+    public static final String ACCESS_TOKEN = "access";
+
+    public static final String REFRESH_TOKEN = "refresh";
+
+    private final JwtEncoder jwtEncoder;
+
+    private final JwtDecoder accessTokenDecoder;
+
+    private final JwtDecoder refreshTokenDecoder;
+
+    private final TokenDenyList denyList;
+
+    private final Duration accessTokenTtl;
+
+    private final Duration refreshTokenTtl;
+
+    public TokenService(TokenDenyList denyList, Duration accessTokenTtl, Duration refreshTokenTtl) {
+
+        this.denyList = denyList;
+        this.accessTokenTtl = accessTokenTtl;
+        this.refreshTokenTtl = refreshTokenTtl;
+
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        SecretKey key = new SecretKeySpec(secret, "HmacSHA256");
+
+        jwtEncoder = new NimbusJwtEncoder(new ImmutableSecret<>(key));
+        accessTokenDecoder = createDecoder(key, ACCESS_TOKEN);
+        refreshTokenDecoder = createDecoder(key, REFRESH_TOKEN);
+    }
+
+    public TokenResponse issueTokens(String username, Collection<? extends GrantedAuthority> authorities) {
+
+        List<String> roles = authorities.stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+
+        Jwt accessToken = encode(username, roles, ACCESS_TOKEN, accessTokenTtl);
+        Jwt refreshToken = encode(username, roles, REFRESH_TOKEN, refreshTokenTtl);
+
+        return new TokenResponse(accessToken.getTokenValue(), refreshToken.getTokenValue(),
+                "Bearer", accessTokenTtl.toSeconds());
+    }
+
+    // used by the resource server to authenticate "Authorization: Bearer ..." requests
+
+    public JwtDecoder getAccessTokenDecoder() {
+        return accessTokenDecoder;
+    }
+
+    // throws JwtException if the token is not a valid, unrevoked refresh token
+
+    public Jwt decodeRefreshToken(String token) {
+        return refreshTokenDecoder.decode(token);
+    }
+
+    // true if this call revoked the token ... of two concurrent calls, only one gets true
+
+    public boolean revoke(Jwt token) {
+        return denyList.revoke(token.getId(), token.getExpiresAt());
+    }
+
+    private Jwt encode(String username, List<String> roles, String tokenType, Duration ttl) {
+
+        Instant now = Instant.now();
+
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .id(UUID.randomUUID().toString())
+                .subject(username)
+                .issuedAt(now)
+                .expiresAt(now.plus(ttl))
+                .claim(ROLES_CLAIM, roles)
+                .claim(TOKEN_TYPE_CLAIM, tokenType)
+                .build();
+
+        JwsHeader header = JwsHeader.with(MacAlgorithm.HS256).build();
+
+        return jwtEncoder.encode(JwtEncoderParameters.from(header, claims));
+    }
+
+    private JwtDecoder createDecoder(SecretKey key, String tokenType) {
+
+        NimbusJwtDecoder decoder = NimbusJwtDecoder.withSecretKey(key)
+                .macAlgorithm(MacAlgorithm.HS256)
+                .build();
+
+        decoder.setJwtValidator(new DelegatingOAuth2TokenValidator<>(
+                JwtValidators.createDefault(),
+                tokenTypeValidator(tokenType),
+                notRevokedValidator()));
+
+        return decoder;
+    }
+
+    // an access token must not be accepted as a refresh token, and the other way round
+
+    private static OAuth2TokenValidator<Jwt> tokenTypeValidator(String tokenType) {
+
+        OAuth2Error error = new OAuth2Error("invalid_token", "Expected a " + tokenType + " token", null);
+
+        return jwt -> tokenType.equals(jwt.getClaimAsString(TOKEN_TYPE_CLAIM))
+                ? OAuth2TokenValidatorResult.success()
+                : OAuth2TokenValidatorResult.failure(error);
+    }
+
+    private OAuth2TokenValidator<Jwt> notRevokedValidator() {
+
+        OAuth2Error error = new OAuth2Error("invalid_token", "Token has been revoked", null);
+
+        return jwt -> denyList.isRevoked(jwt.getId())
+                ? OAuth2TokenValidatorResult.failure(error)
+                : OAuth2TokenValidatorResult.success();
+    }
+
+    public record TokenResponse(String accessToken, String refreshToken, String tokenType, long expiresIn) {
+    }
+}
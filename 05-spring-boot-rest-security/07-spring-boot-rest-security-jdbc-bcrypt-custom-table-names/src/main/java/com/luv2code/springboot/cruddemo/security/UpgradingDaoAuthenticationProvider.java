@@ -0,0 +1,96 @@
+package com.luv2code.springboot.cruddemo.security;
+
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@link DaoAuthenticationProvider} that re-hashes outdated passwords after a successful login.
+ *
+ * Spring Security can do this itself (setUserDetailsPasswordService), but it computes the
+ * new hash on the request thread, which adds a full BCrypt round to that login. Here the
+ * new hash is computed and stored on a small, bounded executor instead.
+ *
+ * A password counts as outdated when the password encoder says so. With the delegating
+ * encoder that means {noop}, or anything else that is not the current encoding, or BCrypt
+ * with a lower cost than configured. If the executor is busy, the upgrade is skipped and
+ * tried again on a later login.
+ */
+public class UpgradingDaoAuthenticationProvider extends DaoAuthenticationProvider {
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+
+    private final PasswordEncoder passwordEncoder;
+
+    private final UserDetailsPasswordService passwordService;
+
+    private final Executor upgradeExecutor;
+
+    private final Set<String> upgradesInFlight = ConcurrentHashMap.newKeySet();
+
+    public UpgradingDaoAuthenticationProvider(UserDetailsService userDetailsService,
+                                              PasswordEncoder passwordEncoder,
+                                              UserDetailsPasswordService passwordService,
+                                              Executor upgradeExecutor) {
+        super(userDetailsService);
+        setPasswordEncoder(passwordEncoder);
+
+        this.passwordEncoder = passwordEncoder;
+        this.passwordService = passwordService;
+        this.upgradeExecutor = upgradeExecutor;
+    }
+
+    @Override
+    protected Authentication createSuccessAuthentication(Object principal, Authentication authentication,
+                                                         UserDetails user) {
+
+        Object credentials = authentication.getCredentials();
+
+        if (credentials != null && passwordEncoder.upgradeEncoding(user.getPassword())) {
+            scheduleUpgrade(user, credentials.toString());
+        }
+
+        return super.createSuccessAuthentication(principal, authentication, user);
+    }
+
+    private void scheduleUpgrade(UserDetails user, String rawPassword) {
+
+        String username = user.getUsername();
+
+        // one upgrade per user at a time
+        if (!upgradesInFlight.add(username)) {
+            return;
+        }
+
+        // copy now ... the credentials of the logged-in user get erased right after this call
+        UserDetails currentUser = User.withUserDetails(user).build();
+
+        try {
+            upgradeExecutor.execute(() -> {
+                try {
+                    passwordService.updatePassword(currentUser, passwordEncoder.encode(rawPassword));
+                }
+                catch (RuntimeException exc) {
+                    logger.log(Level.WARNING, "Password upgrade failed for user " + username, exc);
+                }
+                finally {
+                    upgradesInFlight.remove(username);
+                }
+            });
+        }
+        catch (RejectedExecutionException exc) {
+            upgradesInFlight.remove(username);
+        }
+    }
+}
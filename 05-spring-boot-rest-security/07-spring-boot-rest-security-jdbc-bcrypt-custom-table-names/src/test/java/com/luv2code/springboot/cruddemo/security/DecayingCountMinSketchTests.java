@@ -0,0 +1,79 @@
+package com.luv2code.springboot.cruddemo.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DecayingCountMinSketchTests {
+
+    private static final Duration WINDOW = Duration.ofMinutes(15);
+
+    private static final long WINDOW_NANOS = WINDOW.toNanos();
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void estimateIsNeverLow() {
+
+        // a small sketch and many keys ... plenty of shared cells
+        DecayingCountMinSketch sketch = new DecayingCountMinSketch(4, 64, WINDOW, now::get);
+
+        Random random = new Random(20251018);
+        Map<String, Integer> counts = new HashMap<>();
+
+        for (int i = 0; i < 20_000; i++) {
+            String key = "user" + random.nextInt(2_000);
+
+            sketch.increment(key);
+            counts.merge(key, 1, Integer::sum);
+        }
+
+        counts.forEach((key, count) ->
+                assertTrue(sketch.estimate(key) >= count, key + ": " + sketch.estimate(key) + " < " + count));
+    }
+
+    @Test
+    void countsDecayOverTheNextWindow() {
+
+        DecayingCountMinSketch sketch = new DecayingCountMinSketch(4, 1 << 10, WINDOW, now::get);
+
+        for (int i = 0; i < 10; i++) {
+            sketch.increment("john");
+        }
+
+        assertEquals(10, sketch.estimate("john"));
+
+        // the window is over ... its counts still weigh in fully at first
+        now.set(WINDOW_NANOS);
+        assertEquals(10, sketch.estimate("john"));
+
+        // half way through the next window, half of them
+        now.set(WINDOW_NANOS + WINDOW_NANOS / 2);
+        assertEquals(5, sketch.estimate("john"));
+
+        // new failures count in full
+        sketch.increment("john");
+        assertEquals(6, sketch.estimate("john"));
+    }
+
+    @Test
+    void countsResetAfterTwoWindows() {
+
+        DecayingCountMinSketch sketch = new DecayingCountMinSketch(4, 1 << 10, WINDOW, now::get);
+
+        for (int i = 0; i < 10; i++) {
+            sketch.increment("john");
+        }
+
+        now.set(2 * WINDOW_NANOS);
+
+        assertEquals(0, sketch.estimate("john"));
+    }
+}
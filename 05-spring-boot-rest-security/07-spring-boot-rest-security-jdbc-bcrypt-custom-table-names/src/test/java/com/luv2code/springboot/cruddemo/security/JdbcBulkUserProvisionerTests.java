@@ -0,0 +1,117 @@
+package com.luv2code.springboot.cruddemo.security;
+
+import com.luv2code.springboot.cruddemo.security.JdbcBulkUserProvisioner.NewAccount;
+import com.luv2code.springboot.cruddemo.security.JdbcBulkUserProvisioner.Outcome;
+import com.luv2code.springboot.cruddemo.security.JdbcBulkUserProvisioner.Status;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// the outcome logic only ... the database is a mock, hashing runs on the calling thread
+
+class JdbcBulkUserProvisionerTests {
+
+    private static final String FIND_EXISTING_SQL = "select user_id from members where user_id in (%s)";
+
+    private static final String CREATE_USER_SQL = "insert into members (user_id, pw, active) values (?,?,?)";
+
+    private static final String CREATE_AUTHORITY_SQL = "insert into roles (user_id, role) values (?,?)";
+
+    private static final List<String> EMPLOYEE = List.of("EMPLOYEE");
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    // chunks of two accounts
+    private final JdbcBulkUserProvisioner provisioner = new JdbcBulkUserProvisioner(jdbcTemplate,
+            new TransactionTemplate(mock(PlatformTransactionManager.class)), new BCryptPasswordEncoder(4),
+            Runnable::run, 2, FIND_EXISTING_SQL, CREATE_USER_SQL, CREATE_AUTHORITY_SQL);
+
+    @Test
+    void reportsAnOutcomePerAccountInRequestOrder() {
+
+        List<NewAccount> accounts = Arrays.asList(
+                new NewAccount("anna", "test123", EMPLOYEE),
+                new NewAccount("blank", " ", EMPLOYEE),
+                null,
+                new NewAccount("anna", "test456", EMPLOYEE),
+                new NewAccount("long", "x".repeat(100), EMPLOYEE),
+                new NewAccount("bert", "test123", List.of("MANAGER", "ROLE_ADMIN")));
+
+        List<Outcome> outcomes = provisioner.createUsers(accounts);
+
+        assertEquals(List.of(Status.CREATED, Status.INVALID, Status.INVALID, Status.DUPLICATE_IN_REQUEST,
+                Status.INVALID, Status.CREATED), statuses(outcomes));
+
+        // the password too long for BCrypt only fails its own account ... anna in the same chunk is written
+        assertTrue(outcomes.get(4).message().startsWith("password rejected"));
+
+        assertEquals(List.of("anna", "bert"), insertedUsers());
+    }
+
+    @Test
+    void existingUsersAreNotCreatedAgain() {
+
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(Object[].class)))
+                .thenReturn(List.of("anna"));
+
+        List<Outcome> outcomes = provisioner.createUsers(List.of(
+                new NewAccount("anna", "test123", EMPLOYEE),
+                new NewAccount("bert", "test123", EMPLOYEE)));
+
+        assertEquals(List.of(Status.ALREADY_EXISTS, Status.CREATED), statuses(outcomes));
+        assertEquals(List.of("bert"), insertedUsers());
+    }
+
+    @Test
+    void failedChunkKeepsTheDatabaseErrorToItself() {
+
+        when(jdbcTemplate.batchUpdate(eq(CREATE_USER_SQL), anyList()))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry 'anna' for key 'members.PRIMARY'"));
+
+        List<Outcome> outcomes = provisioner.createUsers(List.of(
+                new NewAccount("anna", "test123", EMPLOYEE),
+                new NewAccount("bert", "test123", EMPLOYEE)));
+
+        assertEquals(List.of(Status.FAILED, Status.FAILED), statuses(outcomes));
+
+        for (Outcome outcome : outcomes) {
+            assertFalse(outcome.message().contains("members"), outcome.message());
+        }
+    }
+
+    private static List<Status> statuses(List<Outcome> outcomes) {
+        return outcomes.stream().map(Outcome::status).toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> insertedUsers() {
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, atLeastOnce()).batchUpdate(eq(CREATE_USER_SQL), rows.capture());
+
+        List<String> usernames = new ArrayList<>();
+        rows.getAllValues().forEach(chunk -> chunk.forEach(row -> usernames.add((String) row[0])));
+
+        return usernames;
+    }
+}
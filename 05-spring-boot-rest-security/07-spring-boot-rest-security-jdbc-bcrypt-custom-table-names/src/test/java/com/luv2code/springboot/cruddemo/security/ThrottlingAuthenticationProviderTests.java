@@ -0,0 +1,217 @@
+package com.luv2code.springboot.cruddemo.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.LockedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// a real DaoAuthenticationProvider behind the throttle ... counting how often it, and the
+// password encoder in it, get to run
+
+class ThrottlingAuthenticationProviderTests {
+
+    private static final Duration WINDOW = Duration.ofMinutes(15);
+
+    private static final String ADDRESS = "192.0.2.10";
+
+    private final PasswordEncoder bcrypt = new BCryptPasswordEncoder(4);
+
+    private final AtomicInteger encoderCalls = new AtomicInteger();
+
+    private final AtomicInteger delegateCalls = new AtomicInteger();
+
+    private final PasswordEncoder countingEncoder = new PasswordEncoder() {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return bcrypt.encode(rawPassword);
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            encoderCalls.incrementAndGet();
+            return bcrypt.matches(rawPassword, encodedPassword);
+        }
+    };
+
+    @Test
+    void throttledAttemptsNeverReachTheDelegate() {
+
+        ThrottlingAuthenticationProvider provider = new ThrottlingAuthenticationProvider(daoProvider(), WINDOW, 3, 100);
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(BadCredentialsException.class, () -> provider.authenticate(login("john", "wrong")));
+        }
+
+        int encoded = encoderCalls.get();
+
+        // even the right password ... the username is throttled
+        assertThrows(LoginThrottledException.class, () -> provider.authenticate(login("john", "test123")));
+        assertThrows(LoginThrottledException.class, () -> provider.authenticate(login("john", "wrong")));
+
+        assertEquals(3, delegateCalls.get());
+        assertEquals(encoded, encoderCalls.get());
+        assertEquals(2, provider.getRejectedCount());
+
+        // other users from the same address carry on
+        assertTrue(provider.authenticate(login("mary", "test123")).isAuthenticated());
+    }
+
+    @Test
+    void throttlesPerAddressToo() {
+
+        ThrottlingAuthenticationProvider provider = new ThrottlingAuthenticationProvider(daoProvider(), WINDOW, 100, 3);
+
+        for (int i = 0; i < 3; i++) {
+            String username = "guess" + i;
+            assertThrows(BadCredentialsException.class, () -> provider.authenticate(login(username, "wrong")));
+        }
+
+        assertThrows(LoginThrottledException.class, () -> provider.authenticate(login("mary", "test123")));
+    }
+
+    @Test
+    void onlyBadCredentialsCount() {
+
+        AuthenticationProvider locked = counting(new AuthenticationProvider() {
+
+            @Override
+            public Authentication authenticate(Authentication authentication) {
+                throw new LockedException("User account is locked");
+            }
+
+            @Override
+            public boolean supports(Class<?> authentication) {
+                return true;
+            }
+        });
+
+        ThrottlingAuthenticationProvider provider = new ThrottlingAuthenticationProvider(locked, WINDOW, 3, 3);
+
+        for (int i = 0; i < 10; i++) {
+            assertThrows(LockedException.class, () -> provider.authenticate(login("john", "test123")));
+        }
+
+        assertEquals(10, delegateCalls.get());
+        assertEquals(0, provider.getRejectedCount());
+    }
+
+    @Test
+    void rejectedAttemptsUnderAttackNeverHashAPassword() {
+
+        int threads = 8;
+        int attemptsPerThread = 250;
+        int maxFailuresPerAddress = 20;
+
+        ThrottlingAuthenticationProvider provider =
+                new ThrottlingAuthenticationProvider(daoProvider(), WINDOW, 5, maxFailuresPerAddress);
+
+        // guessing from one address, at known and random usernames, all threads at once
+
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger throttled = new AtomicInteger();
+        List<CompletableFuture<Void>> attackers = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+
+            attackers.add(CompletableFuture.runAsync(() -> {
+                awaitQuietly(start);
+
+                for (int i = 0; i < attemptsPerThread; i++) {
+                    String username = (i % 2 == 0) ? "john" : "user-" + thread + "-" + i;
+
+                    try {
+                        provider.authenticate(login(username, "guess" + i));
+                    }
+                    catch (LoginThrottledException exc) {
+                        throttled.incrementAndGet();
+                    }
+                    catch (AuthenticationException exc) {
+                        // a wrong guess that got through to the password check
+                    }
+                }
+            }));
+        }
+
+        start.countDown();
+        CompletableFuture.allOf(attackers.toArray(CompletableFuture[]::new)).join();
+
+        int attempts = threads * attemptsPerThread;
+
+        // every attempt either ran one password check or was rejected before it
+        assertEquals(delegateCalls.get(), encoderCalls.get());
+        assertEquals(attempts, delegateCalls.get() + throttled.get());
+        assertEquals(throttled.get(), provider.getRejectedCount());
+
+        // checking and counting aren't one atomic step ... each thread may slip one attempt past the limit
+        assertTrue(delegateCalls.get() <= maxFailuresPerAddress + threads,
+                delegateCalls.get() + " attempts reached the password check");
+    }
+
+    private AuthenticationProvider daoProvider() {
+
+        InMemoryUserDetailsManager users = new InMemoryUserDetailsManager(
+                User.withUsername("john").password(bcrypt.encode("test123")).roles("EMPLOYEE").build(),
+                User.withUsername("mary").password(bcrypt.encode("test123")).roles("EMPLOYEE", "MANAGER").build());
+
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(users);
+        provider.setPasswordEncoder(countingEncoder);
+
+        return counting(provider);
+    }
+
+    private AuthenticationProvider counting(AuthenticationProvider provider) {
+
+        return new AuthenticationProvider() {
+
+            @Override
+            public Authentication authenticate(Authentication authentication) {
+                delegateCalls.incrementAndGet();
+                return provider.authenticate(authentication);
+            }
+
+            @Override
+            public boolean supports(Class<?> authentication) {
+                return provider.supports(authentication);
+            }
+        };
+    }
+
+    private static Authentication login(String username, String password) {
+
+        UsernamePasswordAuthenticationToken token = UsernamePasswordAuthenticationToken.unauthenticated(username, password);
+        token.setDetails(new WebAuthenticationDetails(ADDRESS, null));
+
+        return token;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        }
+        catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.luv2code.springboot.cruddemo.security;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.web.FilterChainProxy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimedFilterChainDecoratorTests {
+
+    private static final int REQUESTS = 10_000;
+
+    // about as many filters as the chain in DemoSecurityConfig
+    private static final int FILTER_COUNT = 15;
+
+    private static final int TIMING_REQUESTS = 100_000;
+
+    private static final FilterChain APPLICATION = (request, response) -> { };
+
+    private static final FilterChainProxy.FilterChainDecorator PLAIN = new FilterChainProxy.VirtualFilterChainDecorator();
+
+    private final Filter passThrough = (request, response, chain) -> chain.doFilter(request, response);
+
+    private final Filter deny = (request, response, chain) -> ((HttpServletResponse) response).setStatus(403);
+
+    private final Filter neverReached = (request, response, chain) -> chain.doFilter(request, response);
+
+    @Test
+    void recordsEachFilterAndTheOutcome() throws Exception {
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TimedFilterChainDecorator decorator = new TimedFilterChainDecorator(PLAIN, registry, 1.0);
+
+        decorator.decorate(APPLICATION, List.of(passThrough))
+                .doFilter(new MockHttpServletRequest(), new MockHttpServletResponse());
+
+        decorator.decorate(APPLICATION, List.of(passThrough, deny))
+                .doFilter(new MockHttpServletRequest(), new MockHttpServletResponse());
+
+        // first request: passThrough ... second request: passThrough and deny
+
+        assertEquals(1, filterCount(registry, "granted"));
+        assertEquals(2, filterCount(registry, "denied"));
+
+        assertEquals(1, registry.get("security.filterchain").tag("outcome", "granted").timer().count());
+        assertEquals(1, registry.get("security.filterchain").tag("outcome", "denied").timer().count());
+    }
+
+    @Test
+    void filtersAfterADenyAreNotRecorded() throws Exception {
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TimedFilterChainDecorator decorator = new TimedFilterChainDecorator(PLAIN, registry, 1.0);
+
+        decorator.decorate(APPLICATION, List.of(passThrough, deny, neverReached))
+                .doFilter(new MockHttpServletRequest(), new MockHttpServletResponse());
+
+        // passThrough and deny ran ... neverReached didn't
+        assertEquals(2, filterCount(registry, "denied"));
+    }
+
+    @Test
+    void everyRequestGoesThroughTheWrappedDecorator() throws Exception {
+
+        AtomicInteger decorated = new AtomicInteger();
+        FilterChainProxy.FilterChainDecorator counting = (original, filters) -> {
+            decorated.incrementAndGet();
+            return PLAIN.decorate(original, filters);
+        };
+
+        TimedFilterChainDecorator sampled = new TimedFilterChainDecorator(counting, new SimpleMeterRegistry(), 1.0);
+        TimedFilterChainDecorator notSampled = new TimedFilterChainDecorator(counting, new SimpleMeterRegistry(), 0.0);
+
+        sampled.decorate(APPLICATION, List.of(passThrough))
+                .doFilter(new MockHttpServletRequest(), new MockHttpServletResponse());
+
+        notSampled.decorate(APPLICATION, List.of(passThrough))
+                .doFilter(new MockHttpServletRequest(), new MockHttpServletResponse());
+
+        assertEquals(2, decorated.get());
+    }
+
+    @Test
+    void samplesAboutTheConfiguredShareOfRequests() throws Exception {
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TimedFilterChainDecorator decorator = new TimedFilterChainDecorator(PLAIN, registry, 0.25);
+
+        AtomicInteger reachedApplication = new AtomicInteger();
+        FilterChain application = (request, response) -> reachedApplication.incrementAndGet();
+
+        for (int i = 0; i < REQUESTS; i++) {
+            decorator.decorate(application, List.of(passThrough))
+                    .doFilter(new MockHttpServletRequest(), new MockHttpServletResponse());
+        }
+
+        // sampled or not, every request gets through ... about a quarter of them are timed
+        // (2,500 expected, with a standard deviation of about 43)
+
+        long sampled = registry.get("security.filterchain").tag("outcome", "granted").timer().count();
+
+        assertEquals(REQUESTS, reachedApplication.get());
+        assertTrue(sampled > 2_000 && sampled < 3_000, sampled + " of " + REQUESTS + " requests were sampled");
+        assertEquals(sampled, filterCount(registry, "granted"));
+    }
+
+    @Test
+    void unsampledRequestsRecordNothing() throws Exception {
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TimedFilterChainDecorator decorator = new TimedFilterChainDecorator(PLAIN, registry, 0.0);
+
+        for (int i = 0; i < 100; i++) {
+            decorator.decorate(APPLICATION, List.of(passThrough, deny))
+                    .doFilter(new MockHttpServletRequest(), new MockHttpServletResponse());
+        }
+
+        // only the chain timers made up front ... no filter timers, nothing recorded
+        assertTrue(registry.find("security.filter").timers().isEmpty());
+        assertEquals(0, registry.get("security.filterchain").timers().stream().mapToLong(Timer::count).sum());
+    }
+
+    @Test
+    void addsOnlyMicrosecondsPerRequest() throws Exception {
+
+        List<Filter> filters = new ArrayList<>();
+
+        for (int i = 0; i < FILTER_COUNT; i++) {
+            filters.add((request, response, chain) -> chain.doFilter(request, response));
+        }
+
+        TimedFilterChainDecorator notSampled = new TimedFilterChainDecorator(PLAIN, new SimpleMeterRegistry(), 0.0);
+        TimedFilterChainDecorator sampled = new TimedFilterChainDecorator(PLAIN, new SimpleMeterRegistry(), 1.0);
+
+        // best of a few rounds, keeping JIT warm-up and GC out of it ... and bounds far above the
+        // real cost (nanoseconds when not sampled), so a busy build machine doesn't fail the test
+
+        long plainNanos = Long.MAX_VALUE;
+        long notSampledNanos = Long.MAX_VALUE;
+        long sampledNanos = Long.MAX_VALUE;
+
+        for (int round = 0; round < 5; round++) {
+            plainNanos = Math.min(plainNanos, nanosPerRequest(PLAIN, filters));
+            notSampledNanos = Math.min(notSampledNanos, nanosPerRequest(notSampled, filters));
+            sampledNanos = Math.min(sampledNanos, nanosPerRequest(sampled, filters));
+        }
+
+        long notSampledOverhead = notSampledNanos - plainNanos;
+        long sampledOverhead = sampledNanos - plainNanos;
+
+        assertTrue(notSampledOverhead < 5_000, "sampling off adds " + notSampledOverhead + " ns per request");
+        assertTrue(sampledOverhead < 100_000, "a sampled request adds " + sampledOverhead + " ns");
+    }
+
+    private static long nanosPerRequest(FilterChainProxy.FilterChainDecorator decorator, List<Filter> filters)
+            throws Exception {
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        long start = System.nanoTime();
+
+        for (int i = 0; i < TIMING_REQUESTS; i++) {
+            decorator.decorate(APPLICATION, filters).doFilter(request, response);
+        }
+
+        return (System.nanoTime() - start) / TIMING_REQUESTS;
+    }
+
+    private static long filterCount(SimpleMeterRegistry registry, String outcome) {
+
+        return registry.get("security.filter").tag("outcome", outcome).timers().stream()
+                .mapToLong(Timer::count)
+                .sum();
+    }
+}
@@ -0,0 +1,48 @@
+package com.luv2code.springboot.cruddemo.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenDenyListTests {
+
+    @Test
+    void aTokenIsRevokedOnlyOnce() throws Exception {
+
+        TokenDenyList denyList = new TokenDenyList();
+        Instant expiresAt = Instant.now().plusSeconds(3600);
+
+        // many refresh calls with the same token, at the same moment ... exactly one may win
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<Boolean>> calls = new ArrayList<>();
+
+        for (int i = 0; i < 16; i++) {
+            calls.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    start.await();
+                }
+                catch (InterruptedException exc) {
+                    Thread.currentThread().interrupt();
+                }
+                return denyList.revoke("refresh-token-id", expiresAt);
+            }));
+        }
+
+        start.countDown();
+
+        long winners = calls.stream().filter(CompletableFuture::join).count();
+
+        assertEquals(1, winners);
+        assertTrue(denyList.isRevoked("refresh-token-id"));
+        assertFalse(denyList.revoke("refresh-token-id", expiresAt));
+    }
+}
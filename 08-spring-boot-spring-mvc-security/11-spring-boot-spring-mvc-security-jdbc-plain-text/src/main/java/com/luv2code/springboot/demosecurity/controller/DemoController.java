@@ -1,13 +1,31 @@
 package com.luv2code.springboot.demosecurity.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 
 @Controller
 public class DemoController {
 
+    private RoleSectionCache roleSectionCache;
+
+    @Autowired
+    public DemoController(RoleSectionCache theRoleSectionCache) {
+        roleSectionCache = theRoleSectionCache;
+    }
+
     @GetMapping("/")
-    public String showHome() {
+    public String showHome(Authentication authentication, Model theModel,
+                           HttpServletRequest request, HttpServletResponse response) {
+
+        // leader/admin links ... rendered once per role combination, not on every request
+
+        theModel.addAttribute("roleSections",
+                roleSectionCache.render("fragments/role-sections", authentication, request, response));
 
         return "home";
     }
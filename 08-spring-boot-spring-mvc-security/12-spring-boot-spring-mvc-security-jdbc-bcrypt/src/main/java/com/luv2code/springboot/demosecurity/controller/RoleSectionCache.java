@@ -0,0 +1,57 @@
+package com.luv2code.springboot.demosecurity.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Renders role-dependent page sections once per set of authorities, and reuses the HTML.
+ *
+ * The section templates only see the "authorities" variable ... nothing user-specific,
+ * so the result can be shared by every user with the same roles. There are only a handful
+ * of role combinations, so the cache stays small.
+ *
+ * Links are rendered through the current request, for the context path. Spring Security
+ * turns off URL rewriting, so no session id ends up in the cached HTML.
+ */
+@Component
+public class RoleSectionCache {
+
+    private final ITemplateEngine templateEngine;
+
+    private final Map<Key, String> sections = new ConcurrentHashMap<>();
+
+    public RoleSectionCache(ITemplateEngine theTemplateEngine) {
+        templateEngine = theTemplateEngine;
+    }
+
+    public String render(String template, Authentication authentication,
+                         HttpServletRequest request, HttpServletResponse response) {
+
+        Set<String> authorities = Set.copyOf(AuthorityUtils.authorityListToSet(authentication.getAuthorities()));
+
+        return sections.computeIfAbsent(new Key(template, request.getContextPath(), authorities), key -> {
+
+            WebContext context = new WebContext(
+                    JakartaServletWebApplication.buildApplication(request.getServletContext())
+                            .buildExchange(request, response),
+                    request.getLocale());
+
+            context.setVariable("authorities", key.authorities());
+
+            return templateEngine.process(key.template(), context);
+        });
+    }
+
+    private record Key(String template, String contextPath, Set<String> authorities) {
+    }
+}
@@ -0,0 +1,21 @@
+USE `employee_directory`;
+
+DROP TABLE IF EXISTS `security_session`;
+
+--
+-- Table structure for table `security_session`
+--
+-- Used when security.session.store=jdbc
+--
+-- session_id: SHA-256 of the session cookie, as hex ... the cookie value itself is never stored
+-- context: the logged-in user's name and roles, in a compact binary format
+-- last_access: epoch millis ... idle sessions are removed in the background
+--
+
+CREATE TABLE `security_session` (
+  `session_id` char(64) NOT NULL,
+  `context` varbinary(1024) NOT NULL,
+  `last_access` bigint NOT NULL,
+  PRIMARY KEY (`session_id`),
+  KEY `idx_security_session_last_access` (`last_access`)
+) ENGINE=InnoDB DEFAULT CHARSET=latin1;
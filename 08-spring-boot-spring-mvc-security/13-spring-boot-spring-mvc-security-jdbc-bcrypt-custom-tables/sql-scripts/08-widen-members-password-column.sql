@@ -0,0 +1,9 @@
+USE `employee_directory`;
+
+--
+-- For a database set up with the original 06 script ... members.pw was char(68),
+-- just wide enough for {bcrypt}. The {argon2@SpringSecurity_v5_8} hashes passwords are
+-- upgraded to on login need about 130 characters.
+--
+
+ALTER TABLE `members` MODIFY `pw` varchar(200) NOT NULL;
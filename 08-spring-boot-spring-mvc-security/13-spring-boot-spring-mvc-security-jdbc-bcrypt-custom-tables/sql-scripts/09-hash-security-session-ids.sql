@@ -0,0 +1,12 @@
+USE `employee_directory`;
+
+--
+-- For a database set up with the original 07 script ... security_session.session_id held
+-- the cookie value itself. Rows are now keyed by its SHA-256, so the old rows can never be
+-- found again, and anyone reading them could still use them as cookies. They are removed:
+-- users logged in through the jdbc store log in again.
+--
+
+DELETE FROM `security_session`;
+
+ALTER TABLE `security_session` MODIFY `session_id` char(64) NOT NULL;
@@ -1,14 +1,41 @@
 package com.luv2code.springboot.demosecurity.security;
 
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.cache.NullUserCache;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.security.crypto.scrypt.SCryptPasswordEncoder;
 import org.springframework.security.provisioning.JdbcUserDetailsManager;
 import org.springframework.security.provisioning.UserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
+import org.springframework.security.web.savedrequest.CookieRequestCache;
 
 import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.security.authorization.AuthenticatedAuthorizationManager.authenticated;
+import static org.springframework.security.authorization.AuthorityAuthorizationManager.hasRole;
 
 @Configuration
 public class DemoSecurityConfig {
@@ -31,15 +58,122 @@ public class DemoSecurityConfig {
         return jdbcUserDetailsManager;
     }
 
+    // new passwords use security.password.encoding-id ... any other encoding (or a lower BCrypt cost)
+    // is still accepted, but gets upgraded
+
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public PasswordEncoder passwordEncoder(@Value("${security.password.encoding-id:bcrypt}") String encodingId,
+                                           @Value("${security.password.bcrypt-strength:10}") int bcryptStrength) {
+
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", new BCryptPasswordEncoder(bcryptStrength));
+        encoders.put("argon2@SpringSecurity_v5_8", Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        encoders.put("pbkdf2@SpringSecurity_v5_8", Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        encoders.put("scrypt@SpringSecurity_v5_8", SCryptPasswordEncoder.defaultsForSpringSecurity_v5_8());
+
+        if (!encoders.containsKey(encodingId)) {
+            throw new IllegalArgumentException("security.password.encoding-id must be one of " + encoders.keySet());
+        }
+
+        DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder(encodingId, encoders);
+
+        // every other id Spring Security knows ({noop}, {pbkdf2}, {scrypt}, {argon2}, {sha256}, ...) still
+        // matches, through the standard encoder ... and is upgraded on the next login
+        passwordEncoder.setDefaultPasswordEncoderForMatches(PasswordEncoderFactories.createDelegatingPasswordEncoder());
+
+        return passwordEncoder;
+    }
+
+    // re-hash outdated passwords after login ... on a small pool, so the login isn't slowed down
+
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor passwordUpgradeExecutor() {
+
+        return new ThreadPoolExecutor(1, 2, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(100));
+    }
+
+    @Bean
+    public JdbcUserPasswordService userPasswordService(DataSource dataSource) {
+
+        return new JdbcUserPasswordService(dataSource, new NullUserCache());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "security.password.report-on-startup", havingValue = "true", matchIfMissing = true)
+    public PasswordEncodingReport passwordEncodingReport(DataSource dataSource, PasswordEncoder passwordEncoder) {
+
+        return new PasswordEncodingReport(dataSource, passwordEncoder);
+    }
+
+    // reject usernames/addresses with too many recent failed logins ... before any password hashing
+
+    @Bean
+    public ThrottlingAuthenticationProvider authenticationProvider(
+            UserDetailsManager userDetailsManager,
+            PasswordEncoder passwordEncoder,
+            JdbcUserPasswordService userPasswordService,
+            ThreadPoolExecutor passwordUpgradeExecutor,
+            @Value("${security.login-throttle.window:15m}") Duration throttleWindow,
+            @Value("${security.login-throttle.max-failures-per-user:10}") long maxFailuresPerUser,
+            @Value("${security.login-throttle.max-failures-per-address:50}") long maxFailuresPerAddress) {
+
+        DaoAuthenticationProvider authenticationProvider = new UpgradingDaoAuthenticationProvider(
+                userDetailsManager, passwordEncoder, userPasswordService, passwordUpgradeExecutor);
+
+        return new ThrottlingAuthenticationProvider(authenticationProvider, throttleWindow,
+                maxFailuresPerUser, maxFailuresPerAddress);
+    }
+
+    // keep logged-in users out of the HttpSession ... security.session.store=mapped-file or jdbc
+
+    @Bean
+    @ConditionalOnProperty(name = "security.session.store", havingValue = "mapped-file")
+    public MappedFileSessionStore mappedFileSessionStore(
+            @Value("${security.session.file:${user.home}/.demosecurity/sessions.dat}") String file,
+            @Value("${security.session.max-sessions:100000}") int maxSessions,
+            @Value("${security.session.slot-size:512}") int slotSize,
+            @Value("${security.session.idle-timeout:30m}") Duration idleTimeout,
+            @Value("${security.session.hmac-key:}") String hmacKey) {
+
+        // no key configured ... a random one, so sessions are signed but don't survive a restart
+        byte[] key = hmacKey.isBlank() ? MappedFileSessionStore.randomKey() : Base64.getDecoder().decode(hmacKey);
+
+        return new MappedFileSessionStore(Path.of(file), maxSessions, slotSize, idleTimeout, key);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "security.session.store", havingValue = "jdbc")
+    public JdbcSessionStore jdbcSessionStore(DataSource dataSource,
+                                             @Value("${security.session.idle-timeout:30m}") Duration idleTimeout,
+                                             @Value("${security.session.touch-interval:1m}") Duration touchInterval) {
+
+        return new JdbcSessionStore(dataSource, idleTimeout, touchInterval);
+    }
+
+    @Bean
+    @ConditionalOnExpression("'${security.session.store:http-session}' != 'http-session'")
+    public IdleSessionSweeper idleSessionSweeper(SessionStore sessionStore,
+                                                 @Value("${security.session.sweep-interval:1m}") Duration interval) {
+
+        return new IdleSessionSweeper(sessionStore, interval);
+    }
+
+    @Bean
+    public SecurityFilterChain filterChain(HttpSecurity http, ObjectProvider<SessionStore> sessionStores) throws Exception {
+
+        // same rules as a list of requestMatchers(...), first match wins ...
+        // but compiled into a lookup, so the number of rules doesn't slow down each request
+
+        CompiledRequestAuthorizationManager authorizationManager = CompiledRequestAuthorizationManager.builder()
+                .rule("/", hasRole("EMPLOYEE"))
+                .rule("/leaders/**", hasRole("MANAGER"))
+                .rule("/systems/**", hasRole("ADMIN"))
+                .anyRequest(authenticated())
+                .build();
 
         http.authorizeHttpRequests(configurer ->
                         configurer
-                                .requestMatchers("/").hasRole("EMPLOYEE")
-                                .requestMatchers("/leaders/**").hasRole("MANAGER")
-                                .requestMatchers("/systems/**").hasRole("ADMIN")
-                                .anyRequest().authenticated()
+                                .anyRequest().access(authorizationManager)
                 )
                 .formLogin(form ->
                         form
@@ -53,6 +187,23 @@ public class DemoSecurityConfig {
                         configurer.accessDeniedPage("/access-denied")
                 );
 
+        SessionStore sessionStore = sessionStores.getIfAvailable();
+
+        if (sessionStore != null) {
+
+            StoreBackedSecurityContextRepository securityContextRepository =
+                    new StoreBackedSecurityContextRepository(sessionStore);
+
+            // the login lives in the session store ... and the CSRF token and the
+            // saved request go into cookies, so no HttpSession is needed at all
+
+            http.securityContext(context -> context.securityContextRepository(securityContextRepository))
+                    .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.NEVER))
+                    .csrf(csrf -> csrf.csrfTokenRepository(new CookieCsrfTokenRepository()))
+                    .requestCache(cache -> cache.requestCache(new CookieRequestCache()))
+                    .logout(logout -> logout.addLogoutHandler(securityContextRepository));
+        }
+
         return http.build();
     }
 
@@ -0,0 +1,55 @@
+package com.luv2code.springboot.demosecurity.security;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Removes idle sessions from a {@link SessionStore} on a background thread.
+ *
+ * The store removes sessions one at a time (or in small batches), so requests are never
+ * held up while a sweep runs.
+ */
+public class IdleSessionSweeper implements AutoCloseable {
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+
+    private final SessionStore sessionStore;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "idle-session-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public IdleSessionSweeper(SessionStore sessionStore, Duration interval) {
+
+        this.sessionStore = sessionStore;
+
+        long intervalMillis = interval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::sweep, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void sweep() {
+
+        try {
+            int removed = sessionStore.removeIdleSessions();
+
+            if (removed > 0) {
+                logger.fine("Removed " + removed + " idle session(s)");
+            }
+        }
+        catch (RuntimeException exc) {
+            // keep the schedule going ... the next sweep will pick them up
+            logger.log(Level.WARNING, "Idle session sweep failed", exc);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
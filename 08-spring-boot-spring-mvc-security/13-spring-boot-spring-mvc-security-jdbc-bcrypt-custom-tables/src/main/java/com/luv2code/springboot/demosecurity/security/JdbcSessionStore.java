@@ -0,0 +1,136 @@
+package com.luv2code.springboot.demosecurity.security;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Keeps sessions in the security_session table (see sql-scripts/07-setup-security-session-table.sql).
+ *
+ * Sessions are shared by every instance of the app that uses the same database, and survive
+ * restarts. To keep a write off most requests, the last access time is only updated once it
+ * is older than the touch interval.
+ *
+ * Rows are keyed by the SHA-256 of the session id, never the id itself, so anyone who can read
+ * the table (a backup, a read-only account) still can't turn a row into a working cookie.
+ */
+public class JdbcSessionStore implements SessionStore {
+
+    private static final String SELECT_SQL =
+            "select context, last_access from security_session where session_id=?";
+
+    private static final String INSERT_SQL =
+            "insert into security_session (session_id, context, last_access) values (?,?,?)";
+
+    private static final String TOUCH_SQL =
+            "update security_session set last_access=? where session_id=?";
+
+    private static final String DELETE_SQL =
+            "delete from security_session where session_id=?";
+
+    // deleted in small batches, so the sweep never holds locks on a large part of the table
+    private static final int DELETE_BATCH_SIZE = 1000;
+
+    private static final String DELETE_IDLE_SQL =
+            "delete from security_session where last_access < ? limit " + DELETE_BATCH_SIZE;
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final long idleTimeoutMillis;
+
+    private final long touchIntervalMillis;
+
+    public JdbcSessionStore(DataSource dataSource, Duration idleTimeout, Duration touchInterval) {
+        this(new JdbcTemplate(dataSource), idleTimeout, touchInterval);
+    }
+
+    // for tests ... a JdbcTemplate that needs no database
+
+    JdbcSessionStore(JdbcTemplate jdbcTemplate, Duration idleTimeout, Duration touchInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idleTimeoutMillis = idleTimeout.toMillis();
+        this.touchIntervalMillis = touchInterval.toMillis();
+    }
+
+    @Override
+    public byte[] load(String sessionId) {
+
+        String key = hash(sessionId);
+
+        List<StoredSession> sessions = jdbcTemplate.query(SELECT_SQL,
+                (rs, rowNum) -> new StoredSession(rs.getBytes(1), rs.getLong(2)), key);
+
+        if (sessions.isEmpty()) {
+            return null;
+        }
+
+        StoredSession session = sessions.get(0);
+        long now = System.currentTimeMillis();
+
+        if (session.lastAccess() < now - idleTimeoutMillis) {
+            return null;
+        }
+
+        if (session.lastAccess() < now - touchIntervalMillis) {
+            jdbcTemplate.update(TOUCH_SQL, now, key);
+        }
+
+        return session.context();
+    }
+
+    @Override
+    public void save(String sessionId, byte[] context) {
+
+        String key = hash(sessionId);
+
+        jdbcTemplate.update(DELETE_SQL, key);
+        jdbcTemplate.update(INSERT_SQL, key, context, System.currentTimeMillis());
+    }
+
+    @Override
+    public void delete(String sessionId) {
+        jdbcTemplate.update(DELETE_SQL, hash(sessionId));
+    }
+
+    @Override
+    public int removeIdleSessions() {
+
+        long idleSince = System.currentTimeMillis() - idleTimeoutMillis;
+        int removed = 0;
+        int batch;
+
+        do {
+            batch = jdbcTemplate.update(DELETE_IDLE_SQL, idleSince);
+            removed += batch;
+        }
+        while (batch == DELETE_BATCH_SIZE);
+
+        return removed;
+    }
+
+    // 64 hex characters ... the same width as the session_id column
+
+    static String hash(String sessionId) {
+
+        try {
+            byte[] digest = MessageDigest.getInstance(DIGEST_ALGORITHM)
+                    .digest(sessionId.getBytes(StandardCharsets.UTF_8));
+
+            return HexFormat.of().formatHex(digest);
+        }
+        catch (GeneralSecurityException exc) {
+            throw new IllegalStateException(exc);
+        }
+    }
+
+    private record StoredSession(byte[] context, long lastAccess) {
+    }
+}
@@ -0,0 +1,417 @@
+package com.luv2code.springboot.demosecurity.security;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps sessions in a memory-mapped file instead of on the Java heap.
+ *
+ * The file is split into fixed-size slots, one per session:
+ *
+ *   payload length (int, 0 = free) | last access (long) | id length (byte) | id | HMAC | payload
+ *
+ * Only a small id-to-slot index lives on the heap. The operating system pages the file
+ * in and out as needed, and sessions survive a restart: the index is rebuilt from the
+ * slots when the store is opened.
+ *
+ * The file holds live session ids, so it must stay private to the user running the app.
+ * Its directory is created owner-only, and an existing directory or file that another
+ * user owns, or that group/others can access, is refused. On top of that, every slot
+ * carries an HMAC-SHA256 of its id and payload, with a key that is not stored in the file.
+ * A slot that fails the check (forged, corrupt, or written with another key) is dropped.
+ *
+ * Each slot is guarded by one of a fixed set of striped locks, so readers never see a slot
+ * that is being rewritten, and the idle sweep never blocks more than one slot at a time.
+ */
+public class MappedFileSessionStore implements SessionStore, AutoCloseable {
+
+    private static final int LENGTH_OFFSET = 0;
+
+    private static final int LAST_ACCESS_OFFSET = 4;
+
+    private static final int ID_LENGTH_OFFSET = 12;
+
+    private static final int ID_OFFSET = 13;
+
+    private static final int MAX_ID_LENGTH = 64;
+
+    private static final int MAC_OFFSET = ID_OFFSET + MAX_ID_LENGTH;
+
+    private static final int MAC_LENGTH = 32;
+
+    private static final int PAYLOAD_OFFSET = MAC_OFFSET + MAC_LENGTH;
+
+    private static final int LOCK_STRIPES = 64;
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private static final int MIN_KEY_LENGTH = 32;
+
+    private static final Set<PosixFilePermission> NOT_OWNER = EnumSet.of(
+            PosixFilePermission.GROUP_READ, PosixFilePermission.GROUP_WRITE, PosixFilePermission.GROUP_EXECUTE,
+            PosixFilePermission.OTHERS_READ, PosixFilePermission.OTHERS_WRITE, PosixFilePermission.OTHERS_EXECUTE);
+
+    private final MappedByteBuffer buffer;
+
+    private final int slotSize;
+
+    private final long idleTimeoutMillis;
+
+    private final SecretKeySpec macKey;
+
+    // Mac isn't thread-safe ... one per thread, instead of one per call
+    private final ThreadLocal<Mac> macs;
+
+    private final Map<String, Integer> slotsById = new ConcurrentHashMap<>();
+
+    private final Object[] slotLocks = new Object[LOCK_STRIPES];
+
+    // stack of free slot numbers, guarded by itself
+    private final int[] freeSlots;
+
+    private int freeSlotCount;
+
+    /**
+     * @param macKey key for the slot HMACs, at least 32 bytes ... sessions written with
+     *               another key are dropped when the store is opened
+     */
+    public MappedFileSessionStore(Path file, int maxSessions, int slotSize, Duration idleTimeout, byte[] macKey) {
+
+        if (slotSize <= PAYLOAD_OFFSET) {
+            throw new IllegalArgumentException("Slot size must be larger than " + PAYLOAD_OFFSET + " bytes");
+        }
+
+        long fileSize = (long) maxSessions * slotSize;
+
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("maxSessions * slotSize must fit in 2 GB");
+        }
+
+        if (macKey == null || macKey.length < MIN_KEY_LENGTH) {
+            throw new IllegalArgumentException("The session HMAC key must be at least " + MIN_KEY_LENGTH + " bytes");
+        }
+
+        this.slotSize = slotSize;
+        this.idleTimeoutMillis = idleTimeout.toMillis();
+        this.freeSlots = new int[maxSessions];
+        this.macKey = new SecretKeySpec(macKey.clone(), MAC_ALGORITHM);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            slotLocks[i] = new Object();
+        }
+
+        try {
+            createPrivateFile(file);
+
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    LinkOption.NOFOLLOW_LINKS)) {
+
+                // the mapping stays valid after the channel is closed
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            }
+        }
+        catch (IOException exc) {
+            throw new UncheckedIOException("Could not map session file " + file, exc);
+        }
+
+        rebuildIndex(maxSessions);
+    }
+
+    /**
+     * A random key ... for when none is configured. Sessions then don't survive a restart.
+     */
+    public static byte[] randomKey() {
+
+        byte[] key = new byte[MIN_KEY_LENGTH];
+        new SecureRandom().nextBytes(key);
+
+        return key;
+    }
+
+    // pick up the sessions that were stored before a restart ... only the ones that pass the HMAC check
+
+    private void rebuildIndex(int maxSessions) {
+
+        for (int slot = maxSessions - 1; slot >= 0; slot--) {
+            int base = slot * slotSize;
+            String id = null;
+
+            if (buffer.getInt(base + LENGTH_OFFSET) != 0) {
+                id = readVerifiedId(base);
+            }
+
+            if (id != null) {
+                slotsById.put(id, slot);
+            }
+            else {
+                buffer.putInt(base + LENGTH_OFFSET, 0);
+                freeSlots[freeSlotCount++] = slot;
+            }
+        }
+    }
+
+    @Override
+    public byte[] load(String sessionId) {
+
+        Integer slot = slotsById.get(sessionId);
+
+        if (slot == null) {
+            return null;
+        }
+
+        int base = slot * slotSize;
+        long now = System.currentTimeMillis();
+
+        synchronized (lockFor(slot)) {
+
+            // the slot may have been freed (and reused) since the index lookup
+            if (!sessionId.equals(readVerifiedId(base))) {
+                return null;
+            }
+
+            if (buffer.getLong(base + LAST_ACCESS_OFFSET) < now - idleTimeoutMillis) {
+                return null;
+            }
+
+            buffer.putLong(base + LAST_ACCESS_OFFSET, now);
+
+            byte[] payload = new byte[buffer.getInt(base + LENGTH_OFFSET)];
+            buffer.get(base + PAYLOAD_OFFSET, payload);
+
+            return payload;
+        }
+    }
+
+    @Override
+    public void save(String sessionId, byte[] context) {
+
+        byte[] id = sessionId.getBytes(StandardCharsets.US_ASCII);
+
+        if (id.length > MAX_ID_LENGTH) {
+            throw new IllegalArgumentException("Session id is longer than " + MAX_ID_LENGTH + " bytes");
+        }
+
+        if (context.length == 0 || context.length > slotSize - PAYLOAD_OFFSET) {
+            throw new IllegalArgumentException("Security context of " + context.length
+                    + " bytes does not fit in a " + slotSize + " byte slot");
+        }
+
+        delete(sessionId);
+
+        byte[] mac = mac(id, context);
+
+        int slot = allocateSlot();
+        int base = slot * slotSize;
+
+        synchronized (lockFor(slot)) {
+            buffer.putLong(base + LAST_ACCESS_OFFSET, System.currentTimeMillis());
+            buffer.put(base + ID_LENGTH_OFFSET, (byte) id.length);
+            buffer.put(base + ID_OFFSET, id);
+            buffer.put(base + MAC_OFFSET, mac);
+            buffer.put(base + PAYLOAD_OFFSET, context);
+
+            // written last ... a non-zero length marks the slot as used
+            buffer.putInt(base + LENGTH_OFFSET, context.length);
+        }
+
+        slotsById.put(sessionId, slot);
+    }
+
+    @Override
+    public void delete(String sessionId) {
+
+        Integer slot = slotsById.remove(sessionId);
+
+        if (slot != null) {
+            synchronized (lockFor(slot)) {
+                buffer.putInt(slot * slotSize + LENGTH_OFFSET, 0);
+            }
+
+            releaseSlot(slot);
+        }
+    }
+
+    @Override
+    public int removeIdleSessions() {
+
+        long idleSince = System.currentTimeMillis() - idleTimeoutMillis;
+        int removed = 0;
+
+        // walks the index without locking it ... requests carry on while the sweep runs
+
+        for (Map.Entry<String, Integer> entry : slotsById.entrySet()) {
+            int slot = entry.getValue();
+            boolean idle;
+
+            // check and free under the same lock ... a load can't touch the session in between
+
+            synchronized (lockFor(slot)) {
+                int base = slot * slotSize;
+
+                idle = buffer.getLong(base + LAST_ACCESS_OFFSET) < idleSince
+                        && slotsById.remove(entry.getKey(), slot);
+
+                if (idle) {
+                    buffer.putInt(base + LENGTH_OFFSET, 0);
+                }
+            }
+
+            if (idle) {
+                releaseSlot(slot);
+                removed++;
+            }
+        }
+
+        return removed;
+    }
+
+    public int size() {
+        return slotsById.size();
+    }
+
+    // write dirty pages back to the file ... called by Spring on shutdown
+
+    @Override
+    public void close() {
+        buffer.force();
+    }
+
+    private int allocateSlot() {
+
+        synchronized (freeSlots) {
+            if (freeSlotCount == 0) {
+                throw new IllegalStateException("Session store is full (" + freeSlots.length + " sessions)");
+            }
+
+            return freeSlots[--freeSlotCount];
+        }
+    }
+
+    private void releaseSlot(int slot) {
+
+        synchronized (freeSlots) {
+            freeSlots[freeSlotCount++] = slot;
+        }
+    }
+
+    // the id of a used slot whose lengths are sane and whose HMAC matches ... otherwise null
+
+    private String readVerifiedId(int base) {
+
+        int length = buffer.getInt(base + LENGTH_OFFSET);
+        int idLength = buffer.get(base + ID_LENGTH_OFFSET);
+
+        if (length <= 0 || length > slotSize - PAYLOAD_OFFSET || idLength <= 0 || idLength > MAX_ID_LENGTH) {
+            return null;
+        }
+
+        byte[] id = new byte[idLength];
+        buffer.get(base + ID_OFFSET, id);
+
+        byte[] payload = new byte[length];
+        buffer.get(base + PAYLOAD_OFFSET, payload);
+
+        byte[] storedMac = new byte[MAC_LENGTH];
+        buffer.get(base + MAC_OFFSET, storedMac);
+
+        if (!MessageDigest.isEqual(storedMac, mac(id, payload))) {
+            return null;
+        }
+
+        return new String(id, StandardCharsets.US_ASCII);
+    }
+
+    private byte[] mac(byte[] id, byte[] payload) {
+
+        Mac mac = macs.get();
+        mac.update((byte) id.length);
+        mac.update(id);
+        mac.update(payload);
+
+        return mac.doFinal();
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(macKey);
+            return mac;
+        }
+        catch (GeneralSecurityException exc) {
+            throw new IllegalStateException(exc);
+        }
+    }
+
+    private Object lockFor(int slot) {
+        return slotLocks[slot % LOCK_STRIPES];
+    }
+
+    // the directory and the file are created owner-only ... and refused if anyone else could get at them
+
+    private static void createPrivateFile(Path file) throws IOException {
+
+        Path directory = file.toAbsolutePath().getParent();
+
+        if (!FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Files.createDirectories(directory);
+            return;
+        }
+
+        if (Files.notExists(directory, LinkOption.NOFOLLOW_LINKS)) {
+            Files.createDirectories(directory,
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        }
+
+        checkPrivate(directory);
+
+        if (Files.notExists(file, LinkOption.NOFOLLOW_LINKS)) {
+            Files.createFile(file,
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        }
+
+        checkPrivate(file);
+    }
+
+    private static void checkPrivate(Path path) throws IOException {
+
+        PosixFileAttributes attributes = Files.readAttributes(path, PosixFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+
+        UserPrincipal currentUser = path.getFileSystem().getUserPrincipalLookupService()
+                .lookupPrincipalByName(System.getProperty("user.name"));
+
+        if (attributes.isSymbolicLink() || !attributes.owner().equals(currentUser)) {
+            throw new IllegalStateException("Refusing session store " + path + ": it is a link or owned by "
+                    + attributes.owner().getName() + ", not " + currentUser.getName());
+        }
+
+        for (PosixFilePermission permission : attributes.permissions()) {
+            if (NOT_OWNER.contains(permission)) {
+                throw new IllegalStateException("Refusing session store " + path + ": permissions "
+                        + PosixFilePermissions.toString(attributes.permissions()) + " allow other users in");
+            }
+        }
+    }
+}
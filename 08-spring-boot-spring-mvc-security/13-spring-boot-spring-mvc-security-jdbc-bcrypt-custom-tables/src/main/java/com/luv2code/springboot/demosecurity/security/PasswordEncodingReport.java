@@ -0,0 +1,91 @@
+package com.luv2code.springboot.demosecurity.security;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+/**
+ * Reports how the passwords in the members table are encoded, and how many accounts
+ * are still on an outdated encoding (they get upgraded on their next login).
+ *
+ * After switching the default encoding every account is outdated, so only the count and
+ * the first few usernames are kept ... the log never gets the whole user list.
+ *
+ * Runs once at startup, see security.password.report-on-startup.
+ */
+public class PasswordEncodingReport implements ApplicationRunner {
+
+    private static final String SELECT_PASSWORDS_SQL = "select user_id, pw from members";
+
+    // usernames of outdated accounts kept in the report, at most
+    private static final int SAMPLE_SIZE = 5;
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final PasswordEncoder passwordEncoder;
+
+    public PasswordEncodingReport(DataSource dataSource, PasswordEncoder passwordEncoder) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.passwordEncoder = passwordEncoder;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+
+        Report report = createReport();
+
+        logger.info("Password encodings in members: " + report.countsByEncoding());
+
+        if (report.outdatedCount() > 0) {
+            logger.warning(report.outdatedCount() + " account(s) on an outdated password encoding, e.g. "
+                    + report.outdatedSample());
+        }
+    }
+
+    public Report createReport() {
+
+        Map<String, Integer> countsByEncoding = new TreeMap<>();
+        List<String> outdatedSample = new ArrayList<>(SAMPLE_SIZE);
+        int[] outdatedCount = new int[1];
+
+        // stream the rows ... no need to hold the whole table in memory
+        jdbcTemplate.query(SELECT_PASSWORDS_SQL, resultSet -> {
+            String username = resultSet.getString(1);
+            String password = resultSet.getString(2);
+
+            countsByEncoding.merge(encodingId(password), 1, Integer::sum);
+
+            if (passwordEncoder.upgradeEncoding(password) && outdatedCount[0]++ < SAMPLE_SIZE) {
+                outdatedSample.add(username);
+            }
+        });
+
+        return new Report(countsByEncoding, outdatedCount[0], outdatedSample);
+    }
+
+    // "{bcrypt}$2a$10$..." -> "bcrypt"
+
+    private static String encodingId(String password) {
+
+        if (password == null || !password.startsWith("{")) {
+            return "none";
+        }
+
+        int end = password.indexOf('}');
+
+        return (end > 0) ? password.substring(1, end) : "none";
+    }
+
+    public record Report(Map<String, Integer> countsByEncoding, int outdatedCount, List<String> outdatedSample) {
+    }
+}
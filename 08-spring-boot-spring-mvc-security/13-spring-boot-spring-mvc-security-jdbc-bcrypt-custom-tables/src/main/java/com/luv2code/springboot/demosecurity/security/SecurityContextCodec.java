@@ -0,0 +1,84 @@
+package com.luv2code.springboot.demosecurity.security;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.core.userdetails.User;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary form of a logged-in user's security context.
+ *
+ * Only what the pages need is kept: the username and the authorities. A typical context
+ * is well under 100 bytes, against a few KB for a Java-serialized authentication token.
+ *
+ * Layout: version byte, username, authority count, authorities (strings as modified UTF-8).
+ */
+final class SecurityContextCodec {
+
+    private static final byte VERSION = 1;
+
+    private SecurityContextCodec() {
+    }
+
+    static byte[] encode(Authentication authentication) {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeUTF(authentication.getName());
+            out.writeShort(authentication.getAuthorities().size());
+
+            for (GrantedAuthority authority : authentication.getAuthorities()) {
+                out.writeUTF(authority.getAuthority());
+            }
+        }
+        catch (IOException exc) {
+            throw new UncheckedIOException(exc);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Rebuilds the context, or returns null if the bytes are in a format this version doesn't know.
+     */
+    static SecurityContext decode(byte[] encoded) {
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded))) {
+
+            if (in.readByte() != VERSION) {
+                return null;
+            }
+
+            String username = in.readUTF();
+            int count = in.readUnsignedShort();
+
+            List<GrantedAuthority> authorities = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                authorities.add(new SimpleGrantedAuthority(in.readUTF()));
+            }
+
+            // no password ... it was only needed at login
+            User principal = new User(username, "", authorities);
+
+            return new SecurityContextImpl(
+                    UsernamePasswordAuthenticationToken.authenticated(principal, null, authorities));
+        }
+        catch (IOException exc) {
+            return null;
+        }
+    }
+}
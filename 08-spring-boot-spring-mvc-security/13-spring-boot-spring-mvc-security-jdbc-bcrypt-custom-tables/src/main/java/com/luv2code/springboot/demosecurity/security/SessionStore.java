@@ -0,0 +1,27 @@
+package com.luv2code.springboot.demosecurity.security;
+
+/**
+ * Keeps encoded security contexts outside the servlet container's HttpSession.
+ *
+ * Contexts are opaque byte arrays (see {@link SecurityContextCodec}), keyed by a random
+ * session id. Implementations expire sessions that haven't been loaded for their idle timeout.
+ */
+public interface SessionStore {
+
+    /**
+     * Returns the encoded context and marks the session as accessed,
+     * or null if the session is unknown or has been idle for too long.
+     */
+    byte[] load(String sessionId);
+
+    void save(String sessionId, byte[] context);
+
+    void delete(String sessionId);
+
+    /**
+     * Removes the sessions that have been idle for longer than the timeout.
+     *
+     * @return the number of sessions removed
+     */
+    int removeIdleSessions();
+}
@@ -0,0 +1,197 @@
+package com.luv2code.springboot.demosecurity.security;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.DeferredSecurityContext;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.logout.LogoutHandler;
+import org.springframework.security.web.context.HttpRequestResponseHolder;
+import org.springframework.security.web.context.SecurityContextRepository;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Loads and saves the logged-in user's security context through a {@link SessionStore},
+ * instead of keeping it in the HttpSession.
+ *
+ * The browser gets a random session id in an HttpOnly cookie. A new id is issued on every
+ * login (no session fixation), and the stored context is deleted on logout.
+ */
+public class StoreBackedSecurityContextRepository implements SecurityContextRepository, LogoutHandler {
+
+    public static final String COOKIE_NAME = "SECURITY_SESSION";
+
+    private static final String LOADED_CONTEXT_ATTRIBUTE =
+            StoreBackedSecurityContextRepository.class.getName() + ".CONTEXT";
+
+    private static final int SESSION_ID_BYTES = 32;
+
+    private static final Base64.Encoder SESSION_ID_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final SessionStore sessionStore;
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final AuthenticationTrustResolver trustResolver = new AuthenticationTrustResolverImpl();
+
+    public StoreBackedSecurityContextRepository(SessionStore sessionStore) {
+        this.sessionStore = sessionStore;
+    }
+
+    @Override
+    public DeferredSecurityContext loadDeferredContext(HttpServletRequest request) {
+
+        // only hit the store if something actually asks for the context
+
+        return new DeferredSecurityContext() {
+
+            private SecurityContext context;
+
+            private boolean generated;
+
+            @Override
+            public SecurityContext get() {
+
+                if (context == null) {
+                    context = load(request);
+
+                    if (context == null) {
+                        context = SecurityContextHolder.getContextHolderStrategy().createEmptyContext();
+                        generated = true;
+                    }
+                }
+
+                return context;
+            }
+
+            @Override
+            public boolean isGenerated() {
+                get();
+                return generated;
+            }
+        };
+    }
+
+    // the older, non-deferred variant of the above
+
+    @Deprecated
+    public SecurityContext loadContext(HttpRequestResponseHolder requestResponseHolder) {
+        return loadDeferredContext(requestResponseHolder.getRequest()).get();
+    }
+
+    @Override
+    public void saveContext(SecurityContext context, HttpServletRequest request, HttpServletResponse response) {
+
+        Authentication authentication = context.getAuthentication();
+        String sessionId = sessionId(request);
+
+        if (sessionId != null) {
+            sessionStore.delete(sessionId);
+        }
+
+        if (authentication == null || trustResolver.isAnonymous(authentication)) {
+            if (sessionId != null) {
+                writeCookie(request, response, "", 0);
+            }
+
+            return;
+        }
+
+        // always a new id ... the old one may have been planted before the login
+
+        String newSessionId = newSessionId();
+
+        sessionStore.save(newSessionId, SecurityContextCodec.encode(authentication));
+        request.setAttribute(LOADED_CONTEXT_ATTRIBUTE, context);
+
+        // no Max-Age ... the cookie goes when the browser closes, the stored session when it's idle
+        writeCookie(request, response, newSessionId, -1);
+    }
+
+    @Override
+    public boolean containsContext(HttpServletRequest request) {
+        return load(request) != null;
+    }
+
+    @Override
+    public void logout(HttpServletRequest request, HttpServletResponse response, Authentication authentication) {
+
+        String sessionId = sessionId(request);
+
+        if (sessionId != null) {
+            sessionStore.delete(sessionId);
+            writeCookie(request, response, "", 0);
+        }
+    }
+
+    private SecurityContext load(HttpServletRequest request) {
+
+        // several filters may ask in the same request ... only go to the store once
+
+        if (request.getAttribute(LOADED_CONTEXT_ATTRIBUTE) instanceof SecurityContext context) {
+            return context;
+        }
+
+        String sessionId = sessionId(request);
+
+        if (sessionId == null) {
+            return null;
+        }
+
+        byte[] encoded = sessionStore.load(sessionId);
+        SecurityContext context = (encoded != null) ? SecurityContextCodec.decode(encoded) : null;
+
+        if (context != null) {
+            request.setAttribute(LOADED_CONTEXT_ATTRIBUTE, context);
+        }
+
+        return context;
+    }
+
+    private String newSessionId() {
+
+        byte[] bytes = new byte[SESSION_ID_BYTES];
+        random.nextBytes(bytes);
+
+        return SESSION_ID_ENCODER.encodeToString(bytes);
+    }
+
+    private static String sessionId(HttpServletRequest request) {
+
+        Cookie[] cookies = request.getCookies();
+
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (COOKIE_NAME.equals(cookie.getName()) && !cookie.getValue().isEmpty()) {
+                    return cookie.getValue();
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private static void writeCookie(HttpServletRequest request, HttpServletResponse response,
+                                    String value, long maxAgeSeconds) {
+
+        String path = request.getContextPath().isEmpty() ? "/" : request.getContextPath();
+
+        ResponseCookie cookie = ResponseCookie.from(COOKIE_NAME, value)
+                .path(path)
+                .httpOnly(true)
+                .secure(request.isSecure())
+                .sameSite("Lax")
+                .maxAge(maxAgeSeconds)
+                .build();
+
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+}
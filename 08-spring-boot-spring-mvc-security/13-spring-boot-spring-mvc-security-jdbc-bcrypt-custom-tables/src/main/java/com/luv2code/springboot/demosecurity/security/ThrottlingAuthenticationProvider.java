@@ -0,0 +1,96 @@
+package com.luv2code.springboot.demosecurity.security;
+
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stops password guessing before any password hashing happens.
+ *
+ * Failed logins are counted per username and per client IP address over a sliding window.
+ * Once either count reaches its limit, further attempts are rejected straight away, without
+ * loading the user or running BCrypt, until the count decays.
+ *
+ * Both counts live in fixed-size {@link DecayingCountMinSketch}es, so memory stays the same
+ * however many usernames or addresses an attacker cycles through. The IP address comes from
+ * the request's remote address (behind a proxy, set server.forward-headers-strategy).
+ */
+public class ThrottlingAuthenticationProvider implements AuthenticationProvider {
+
+    private static final int SKETCH_DEPTH = 4;
+
+    private static final int SKETCH_WIDTH = 1 << 14;
+
+    private final AuthenticationProvider delegate;
+
+    private final DecayingCountMinSketch failuresByUsername;
+
+    private final DecayingCountMinSketch failuresByAddress;
+
+    private final long maxFailuresPerUsername;
+
+    private final long maxFailuresPerAddress;
+
+    private final LongAdder rejectedAttempts = new LongAdder();
+
+    public ThrottlingAuthenticationProvider(AuthenticationProvider delegate, Duration window,
+                                            long maxFailuresPerUsername, long maxFailuresPerAddress) {
+
+        this.delegate = delegate;
+        this.maxFailuresPerUsername = maxFailuresPerUsername;
+        this.maxFailuresPerAddress = maxFailuresPerAddress;
+
+        failuresByUsername = new DecayingCountMinSketch(SKETCH_DEPTH, SKETCH_WIDTH, window);
+        failuresByAddress = new DecayingCountMinSketch(SKETCH_DEPTH, SKETCH_WIDTH, window);
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+
+        String username = authentication.getName();
+        String address = remoteAddress(authentication);
+
+        if (failuresByUsername.estimate(username) >= maxFailuresPerUsername
+                || (address != null && failuresByAddress.estimate(address) >= maxFailuresPerAddress)) {
+
+            rejectedAttempts.increment();
+            throw new LoginThrottledException("Too many failed login attempts, try again later");
+        }
+
+        try {
+            return delegate.authenticate(authentication);
+        }
+        catch (BadCredentialsException exc) {
+            failuresByUsername.increment(username);
+
+            if (address != null) {
+                failuresByAddress.increment(address);
+            }
+
+            throw exc;
+        }
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+
+    public long getRejectedCount() {
+        return rejectedAttempts.sum();
+    }
+
+    private static String remoteAddress(Authentication authentication) {
+
+        if (authentication.getDetails() instanceof WebAuthenticationDetails details) {
+            return details.getRemoteAddress();
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,86 @@
+package com.luv2code.springboot.demosecurity.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// the real role-sections template, rendered by a template engine set up like the app's
+
+class RoleSectionCacheTests {
+
+    private static final String TEMPLATE = "fragments/role-sections";
+
+    private final RoleSectionCache roleSectionCache = new RoleSectionCache(templateEngine());
+
+    @Test
+    void usersWithTheSameRolesShareTheHtml() {
+
+        String mary = render(user("mary", "ROLE_EMPLOYEE", "ROLE_MANAGER"));
+        String susan = render(user("susan", "ROLE_MANAGER", "ROLE_EMPLOYEE"));
+
+        // the same string ... rendered once
+        assertSame(mary, susan);
+
+        assertTrue(mary.contains("/leaders"), mary);
+        assertFalse(mary.contains("mary"), mary);
+    }
+
+    @Test
+    void managersNeverSeeTheAdminSection() {
+
+        // an admin first, so there is admin HTML in the cache to leak
+        String admin = render(user("susan", "ROLE_EMPLOYEE", "ROLE_MANAGER", "ROLE_ADMIN"));
+        String manager = render(user("mary", "ROLE_MANAGER"));
+
+        assertNotSame(admin, manager);
+
+        assertTrue(admin.contains("/systems"), admin);
+        assertTrue(manager.contains("/leaders"), manager);
+        assertFalse(manager.contains("/systems"), manager);
+        assertFalse(manager.contains("IT Systems Meeting"), manager);
+    }
+
+    @Test
+    void linksCarryTheContextPath() {
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setContextPath("/demo");
+
+        String html = roleSectionCache.render(TEMPLATE, user("mary", "ROLE_MANAGER"), request,
+                new MockHttpServletResponse());
+
+        assertTrue(html.contains("/demo/leaders"), html);
+    }
+
+    private String render(Authentication authentication) {
+        return roleSectionCache.render(TEMPLATE, authentication, new MockHttpServletRequest(),
+                new MockHttpServletResponse());
+    }
+
+    private static Authentication user(String username, String... authorities) {
+        return UsernamePasswordAuthenticationToken.authenticated(username, null,
+                AuthorityUtils.createAuthorityList(authorities));
+    }
+
+    private static SpringTemplateEngine templateEngine() {
+
+        ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
+        templateResolver.setPrefix("templates/");
+        templateResolver.setSuffix(".html");
+
+        SpringTemplateEngine templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+
+        return templateEngine;
+    }
+}
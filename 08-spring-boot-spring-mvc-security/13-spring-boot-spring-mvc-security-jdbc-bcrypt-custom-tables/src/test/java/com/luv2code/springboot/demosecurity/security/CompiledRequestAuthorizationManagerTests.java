@@ -0,0 +1,130 @@
+package com.luv2code.springboot.demosecurity.security;
+
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// property-style check: for random rule lists and random requests, the compiled lookup
+// must pick exactly the rule that checking requestMatchers(...) one by one would pick
+
+class CompiledRequestAuthorizationManagerTests {
+
+    private static final String[] SEGMENTS = { "api", "employees", "leaders", "systems", "1", "a", "" };
+
+    private static final String[] PATTERN_SEGMENTS = { "api", "employees", "leaders", "1", "a", "*", "{id}", "a*" };
+
+    private static final HttpMethod[] METHODS = { null, HttpMethod.GET, HttpMethod.POST, HttpMethod.PUT, HttpMethod.DELETE };
+
+    private static final AuthorizationManager<RequestAuthorizationContext> ALLOW =
+            (authentication, context) -> new AuthorizationDecision(true);
+
+    private static int seed = 20251018;
+
+    @RepeatedTest(200)
+    void compiledLookupMatchesOrderedEvaluation() {
+
+        Random random = new Random(seed++);
+
+        CompiledRequestAuthorizationManager.Builder builder = CompiledRequestAuthorizationManager.builder();
+        List<RequestMatcher> orderedMatchers = new ArrayList<>();
+
+        int ruleCount = 1 + random.nextInt(40);
+
+        for (int i = 0; i < ruleCount; i++) {
+            HttpMethod method = METHODS[random.nextInt(METHODS.length)];
+            String pattern = randomPattern(random);
+
+            builder.rule(method, pattern, ALLOW);
+            orderedMatchers.add(PathPatternRequestMatcher.withDefaults().matcher(method, pattern));
+        }
+
+        CompiledRequestAuthorizationManager compiled = builder.build();
+
+        for (int i = 0; i < 200; i++) {
+            MockHttpServletRequest request = randomRequest(random);
+
+            assertEquals(firstMatchingIndex(orderedMatchers, request), compiled.findRuleIndex(request),
+                    () -> request.getMethod() + " " + request.getRequestURI());
+        }
+    }
+
+    @Test
+    void knownRulesPickTheFirstMatch() {
+
+        CompiledRequestAuthorizationManager compiled = CompiledRequestAuthorizationManager.builder()
+                .rule(HttpMethod.GET, "/api/employees", ALLOW)
+                .rule(HttpMethod.GET, "/api/employees/**", ALLOW)
+                .rule(HttpMethod.POST, "/api/employees", ALLOW)
+                .rule(HttpMethod.DELETE, "/api/employees/**", ALLOW)
+                .anyRequest(ALLOW)
+                .build();
+
+        assertEquals(0, compiled.findRuleIndex(new MockHttpServletRequest("GET", "/api/employees")));
+        assertEquals(1, compiled.findRuleIndex(new MockHttpServletRequest("GET", "/api/employees/3")));
+        assertEquals(2, compiled.findRuleIndex(new MockHttpServletRequest("POST", "/api/employees")));
+        assertEquals(3, compiled.findRuleIndex(new MockHttpServletRequest("DELETE", "/api/employees/3")));
+        assertEquals(4, compiled.findRuleIndex(new MockHttpServletRequest("PUT", "/api/employees")));
+        assertEquals(4, compiled.findRuleIndex(new MockHttpServletRequest("GET", "/")));
+    }
+
+    private static int firstMatchingIndex(List<RequestMatcher> matchers, MockHttpServletRequest request) {
+
+        for (int i = 0; i < matchers.size(); i++) {
+            if (matchers.get(i).matches(request)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static String randomPattern(Random random) {
+
+        if (random.nextInt(20) == 0) {
+            return "/";
+        }
+
+        StringBuilder pattern = new StringBuilder();
+        int depth = 1 + random.nextInt(3);
+
+        for (int i = 0; i < depth; i++) {
+            pattern.append('/').append(PATTERN_SEGMENTS[random.nextInt(PATTERN_SEGMENTS.length)]);
+        }
+
+        if (random.nextInt(3) == 0) {
+            pattern.append("/**");
+        }
+
+        return pattern.toString();
+    }
+
+    private static MockHttpServletRequest randomRequest(Random random) {
+
+        HttpMethod method = METHODS[1 + random.nextInt(METHODS.length - 1)];
+
+        StringBuilder path = new StringBuilder();
+        int depth = random.nextInt(5);
+
+        for (int i = 0; i < depth; i++) {
+            path.append('/').append(SEGMENTS[random.nextInt(SEGMENTS.length)]);
+        }
+
+        if (path.isEmpty()) {
+            path.append('/');
+        }
+
+        return new MockHttpServletRequest(method.name(), path.toString());
+    }
+}
@@ -0,0 +1,87 @@
+package com.luv2code.springboot.demosecurity.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// the database is a mock ... what matters is which key reaches it, and what comes back
+
+class JdbcSessionStoreTests {
+
+    private static final Duration IDLE_TIMEOUT = Duration.ofMinutes(30);
+
+    private static final String SESSION_ID = "q3Zb0yXW8n5cKJ7uVd2LmP4sRt6eAhGf1iOkNwYzEcU";
+
+    private static final byte[] CONTEXT = "some security context".getBytes(StandardCharsets.US_ASCII);
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    private final JdbcSessionStore store = new JdbcSessionStore(jdbcTemplate, IDLE_TIMEOUT, Duration.ofMinutes(1));
+
+    @Test
+    void onlyTheHashOfTheIdIsStored() {
+
+        String key = JdbcSessionStore.hash(SESSION_ID);
+
+        assertEquals(64, key.length());
+        assertFalse(key.contains(SESSION_ID));
+
+        store.save(SESSION_ID, CONTEXT);
+        store.delete(SESSION_ID);
+
+        verify(jdbcTemplate).update(startsWith("insert"), eq(key), eq(CONTEXT), anyLong());
+        verify(jdbcTemplate, never()).update(startsWith("insert"), eq(SESSION_ID), any(), any());
+    }
+
+    @Test
+    void sessionsAreLookedUpByTheHash() {
+
+        storedSession(JdbcSessionStore.hash(SESSION_ID), System.currentTimeMillis());
+
+        assertArrayEquals(CONTEXT, store.load(SESSION_ID));
+    }
+
+    @Test
+    void idleSessionIsNotLoaded() {
+
+        long lastAccess = System.currentTimeMillis() - IDLE_TIMEOUT.toMillis() - 1_000;
+        storedSession(JdbcSessionStore.hash(SESSION_ID), lastAccess);
+
+        assertNull(store.load(SESSION_ID));
+
+        // and not brought back to life by a touch
+        verify(jdbcTemplate, never()).update(startsWith("update"), any(), any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void storedSession(String key, long lastAccess) {
+
+        when(jdbcTemplate.query(startsWith("select"), any(RowMapper.class), eq(key))).thenAnswer(invocation -> {
+            ResultSet row = mock(ResultSet.class);
+            when(row.getBytes(1)).thenReturn(CONTEXT);
+            when(row.getLong(2)).thenReturn(lastAccess);
+
+            RowMapper<Object> mapper = invocation.getArgument(1);
+
+            return List.of(mapper.mapRow(row, 0));
+        });
+    }
+}
@@ -0,0 +1,187 @@
+package com.luv2code.springboot.demosecurity.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// the store works on raw bytes ... no Spring context needed. Slots are written straight
+// into the file to play the part of a corrupt file or of another local user
+
+class MappedFileSessionStoreTests {
+
+    private static final int MAX_SESSIONS = 8;
+
+    private static final int SLOT_SIZE = 256;
+
+    private static final byte[] KEY = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] CONTEXT = "some security context".getBytes(StandardCharsets.US_ASCII);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void sessionsSurviveReopeningWithTheSameKey() {
+
+        Path file = tempDir.resolve("sessions/sessions.dat");
+
+        try (MappedFileSessionStore store = open(file, KEY)) {
+            store.save("abc", CONTEXT);
+            assertArrayEquals(CONTEXT, store.load("abc"));
+        }
+
+        try (MappedFileSessionStore store = open(file, KEY)) {
+            assertEquals(1, store.size());
+            assertArrayEquals(CONTEXT, store.load("abc"));
+        }
+    }
+
+    @Test
+    void sessionsWrittenWithAnotherKeyAreDropped() {
+
+        Path file = tempDir.resolve("sessions/sessions.dat");
+
+        try (MappedFileSessionStore store = open(file, KEY)) {
+            store.save("abc", CONTEXT);
+        }
+
+        try (MappedFileSessionStore store = open(file, MappedFileSessionStore.randomKey())) {
+            assertEquals(0, store.size());
+            assertNull(store.load("abc"));
+        }
+    }
+
+    @Test
+    void forgedSlotIsNotLoaded() throws IOException {
+
+        Path file = tempDir.resolve("sessions/sessions.dat");
+
+        open(file, KEY).close();
+
+        // a slot with a well-formed layout but no valid HMAC
+        byte[] id = "forged".getBytes(StandardCharsets.US_ASCII);
+
+        ByteBuffer slot = ByteBuffer.allocate(SLOT_SIZE);
+        slot.putInt(0, CONTEXT.length);
+        slot.putLong(4, System.currentTimeMillis());
+        slot.put(12, (byte) id.length);
+        slot.put(13, id);
+        slot.put(109, CONTEXT);
+
+        write(file, 3L * SLOT_SIZE, slot);
+
+        try (MappedFileSessionStore store = open(file, KEY)) {
+            assertEquals(0, store.size());
+            assertNull(store.load("forged"));
+        }
+    }
+
+    @Test
+    void corruptIdLengthIsSkipped() throws IOException {
+
+        Path file = tempDir.resolve("sessions/sessions.dat");
+
+        try (MappedFileSessionStore store = open(file, KEY)) {
+            store.save("abc", CONTEXT);
+            store.save("def", CONTEXT);
+        }
+
+        // the first session went into slot 0
+        write(file, 12, ByteBuffer.wrap(new byte[] { (byte) 200 }));
+
+        try (MappedFileSessionStore store = open(file, KEY)) {
+            assertEquals(1, store.size());
+            assertNull(store.load("abc"));
+            assertArrayEquals(CONTEXT, store.load("def"));
+
+            // the skipped slot is free again
+            for (int i = 0; i < MAX_SESSIONS - 1; i++) {
+                store.save("session-" + i, CONTEXT);
+            }
+        }
+    }
+
+    @Test
+    void fileOthersCanReadIsRefused() throws IOException {
+
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+
+        Path directory = Files.createDirectory(tempDir.resolve("sessions"),
+                PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+
+        Path file = Files.createFile(directory.resolve("sessions.dat"));
+        Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-r--r--"));
+
+        assertThrows(IllegalStateException.class, () -> open(file, KEY));
+    }
+
+    @Test
+    void directoryOthersCanEnterIsRefused() throws IOException {
+
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+
+        Path directory = Files.createDirectory(tempDir.resolve("sessions"));
+        Files.setPosixFilePermissions(directory, PosixFilePermissions.fromString("rwxr-xr-x"));
+
+        assertThrows(IllegalStateException.class, () -> open(directory.resolve("sessions.dat"), KEY));
+    }
+
+    @Test
+    void newFileIsOwnerOnly() throws IOException {
+
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+
+        Path file = tempDir.resolve("sessions/sessions.dat");
+
+        open(file, KEY).close();
+
+        assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(file.getParent())));
+        assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(file)));
+    }
+
+    @Test
+    void sweepRemovesOnlyIdleSessions() throws IOException {
+
+        Path file = tempDir.resolve("sessions/sessions.dat");
+
+        try (MappedFileSessionStore store = open(file, KEY)) {
+            store.save("idle", CONTEXT);
+            store.save("active", CONTEXT);
+
+            // back-date the first session (slot 0) instead of waiting for it to go idle
+            write(file, 4, ByteBuffer.allocate(Long.BYTES).putLong(0, 0L));
+
+            assertEquals(1, store.removeIdleSessions());
+            assertNull(store.load("idle"));
+            assertArrayEquals(CONTEXT, store.load("active"));
+            assertEquals(0, store.removeIdleSessions());
+        }
+    }
+
+    private static MappedFileSessionStore open(Path file, byte[] key) {
+        return new MappedFileSessionStore(file, MAX_SESSIONS, SLOT_SIZE, Duration.ofMinutes(30), key);
+    }
+
+    private static void write(Path file, long position, ByteBuffer bytes) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(bytes, position);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.luv2code.springboot.demosecurity.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SecurityContextCodecTests {
+
+    @Test
+    void roundTripKeepsTheUsernameAndRoles() {
+
+        Authentication login = UsernamePasswordAuthenticationToken.authenticated("mary", "test123",
+                AuthorityUtils.createAuthorityList("ROLE_EMPLOYEE", "ROLE_MANAGER"));
+
+        byte[] encoded = SecurityContextCodec.encode(login);
+        SecurityContext context = SecurityContextCodec.decode(encoded);
+
+        Authentication decoded = context.getAuthentication();
+
+        assertEquals("mary", decoded.getName());
+        assertEquals(login.getAuthorities(), decoded.getAuthorities());
+        assertTrue(decoded.isAuthenticated());
+
+        // no password kept
+        assertNull(decoded.getCredentials());
+        assertTrue(encoded.length < 100, encoded.length + " bytes");
+    }
+
+    @Test
+    void unknownFormatsDecodeToNull() {
+
+        byte[] encoded = SecurityContextCodec.encode(UsernamePasswordAuthenticationToken.authenticated("john", "test123",
+                AuthorityUtils.createAuthorityList("ROLE_EMPLOYEE")));
+
+        encoded[0] = 99;
+
+        assertNull(SecurityContextCodec.decode(encoded));
+        assertNull(SecurityContextCodec.decode(new byte[] { 1, 0 }));
+    }
+}
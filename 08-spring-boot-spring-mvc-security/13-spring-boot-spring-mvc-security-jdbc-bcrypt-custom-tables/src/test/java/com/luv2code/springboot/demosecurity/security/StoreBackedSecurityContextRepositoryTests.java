@@ -0,0 +1,135 @@
+package com.luv2code.springboot.demosecurity.security;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.DeferredSecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// the repository against a map-backed store ... each store's own expiry is tested with the store
+
+class StoreBackedSecurityContextRepositoryTests {
+
+    private final InMemorySessionStore sessionStore = new InMemorySessionStore();
+
+    private final StoreBackedSecurityContextRepository repository = new StoreBackedSecurityContextRepository(sessionStore);
+
+    private final Authentication john = UsernamePasswordAuthenticationToken.authenticated("john", null,
+            AuthorityUtils.createAuthorityList("ROLE_EMPLOYEE"));
+
+    @Test
+    void loginIssuesANewSessionId() {
+
+        // an id someone may have planted before the login
+        sessionStore.save("planted", SecurityContextCodec.encode(john));
+
+        String sessionId = login(requestWithSession("planted"));
+
+        assertNotEquals("planted", sessionId);
+        assertEquals(Set.of(sessionId), sessionStore.sessions.keySet());
+
+        DeferredSecurityContext context = repository.loadDeferredContext(requestWithSession(sessionId));
+
+        assertFalse(context.isGenerated());
+        assertEquals("john", context.get().getAuthentication().getName());
+    }
+
+    @Test
+    void logoutDeletesTheStoredSession() {
+
+        String sessionId = login(new MockHttpServletRequest());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        repository.logout(requestWithSession(sessionId), response, john);
+
+        assertTrue(sessionStore.sessions.isEmpty());
+        assertTrue(response.getHeader(HttpHeaders.SET_COOKIE).contains("Max-Age=0"));
+        assertFalse(repository.containsContext(requestWithSession(sessionId)));
+    }
+
+    @Test
+    void idleSessionGivesAnEmptyContext() {
+
+        String sessionId = login(new MockHttpServletRequest());
+
+        sessionStore.idle.add(sessionId);
+
+        DeferredSecurityContext context = repository.loadDeferredContext(requestWithSession(sessionId));
+
+        assertTrue(context.isGenerated());
+        assertNull(context.get().getAuthentication());
+        assertFalse(repository.containsContext(requestWithSession(sessionId)));
+    }
+
+    private String login(MockHttpServletRequest request) {
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        repository.saveContext(new SecurityContextImpl(john), request, response);
+
+        return sessionIdFrom(response);
+    }
+
+    private static MockHttpServletRequest requestWithSession(String sessionId) {
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(StoreBackedSecurityContextRepository.COOKIE_NAME, sessionId));
+
+        return request;
+    }
+
+    private static String sessionIdFrom(MockHttpServletResponse response) {
+
+        String setCookie = response.getHeader(HttpHeaders.SET_COOKIE);
+        String prefix = StoreBackedSecurityContextRepository.COOKIE_NAME + "=";
+
+        assertTrue(setCookie.startsWith(prefix), setCookie);
+
+        return setCookie.substring(prefix.length(), setCookie.indexOf(';'));
+    }
+
+    // sessions marked idle load as null, the way the real stores treat one past its timeout
+
+    private static class InMemorySessionStore implements SessionStore {
+
+        private final Map<String, byte[]> sessions = new HashMap<>();
+
+        private final Set<String> idle = new HashSet<>();
+
+        @Override
+        public byte[] load(String sessionId) {
+            return idle.contains(sessionId) ? null : sessions.get(sessionId);
+        }
+
+        @Override
+        public void save(String sessionId, byte[] context) {
+            sessions.put(sessionId, context);
+        }
+
+        @Override
+        public void delete(String sessionId) {
+            sessions.remove(sessionId);
+        }
+
+        @Override
+        public int removeIdleSessions() {
+            return 0;
+        }
+    }
+}
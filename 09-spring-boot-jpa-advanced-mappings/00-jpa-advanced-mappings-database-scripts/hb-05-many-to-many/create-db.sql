@@ -53,6 +53,7 @@ CREATE TABLE `review` (
 
   PRIMARY KEY (`id`),
 
+  -- also serves the review counts per course (GROUP BY course_id)
   KEY `FK_COURSE_ID_idx` (`course_id`),
 
   CONSTRAINT `FK_COURSE` 
@@ -67,8 +68,11 @@ CREATE TABLE `student` (
   `id` int NOT NULL AUTO_INCREMENT,
   `first_name` varchar(45) DEFAULT NULL,
   `last_name` varchar(45) DEFAULT NULL,
-  `email` varchar(45) DEFAULT NULL,
-  PRIMARY KEY (`id`)
+  `email` varchar(45) NOT NULL,
+  PRIMARY KEY (`id`),
+
+  -- the business key of a student ... Student.equals/hashCode rely on it
+  UNIQUE KEY `EMAIL_UNIQUE` (`email`)
 ) ENGINE=InnoDB AUTO_INCREMENT=1 DEFAULT CHARSET=latin1;
 
 
@@ -76,6 +80,7 @@ CREATE TABLE `course_student` (
   `course_id` int NOT NULL,
   `student_id` int NOT NULL,
   
+  -- course_id first ... the primary key is the index for the enrolment counts per course
   PRIMARY KEY (`course_id`,`student_id`),
   
   KEY `FK_STUDENT_idx` (`student_id`),
@@ -0,0 +1,14 @@
+use `hb-05-many-to-many`;
+
+--
+-- For a database set up with the original create-db.sql ... student.email was nullable and
+-- not unique. Student.equals/hashCode use the email, so it has to identify a student.
+--
+-- This fails if students share an email or have none. Find them first with:
+--
+--   SELECT `email`, COUNT(*) FROM `student` GROUP BY `email` HAVING COUNT(*) > 1 OR `email` IS NULL;
+--
+
+ALTER TABLE `student`
+  MODIFY `email` varchar(45) NOT NULL,
+  ADD UNIQUE KEY `EMAIL_UNIQUE` (`email`);
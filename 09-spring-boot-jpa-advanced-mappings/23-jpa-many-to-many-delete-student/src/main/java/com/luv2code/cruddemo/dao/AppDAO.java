@@ -3,6 +3,7 @@ package com.luv2code.cruddemo.dao;
 import com.luv2code.cruddemo.entity.Course;
 import com.luv2code.cruddemo.entity.Instructor;
 import com.luv2code.cruddemo.entity.InstructorDetail;
+import com.luv2code.cruddemo.entity.Review;
 import com.luv2code.cruddemo.entity.Student;
 
 import java.util.List;
@@ -42,6 +43,46 @@ public interface AppDAO {
     void update(Student tempStudent);
 
     void deleteStudentById(int theId);
+
+    // load an entity together with the associations named by the fetch profile
+
+    Instructor findInstructorById(int theId, FetchProfile theProfile);
+
+    Course findCourseById(int theId, FetchProfile theProfile);
+
+    Student findStudentById(int theId, FetchProfile theProfile);
+
+    List<Course> findCoursesByInstructorId(int theId, FetchProfile theProfile);
+
+    // catalogue listings ... one row per course, no entities loaded
+
+    List<CourseSummary> findCourseSummaries();
+
+    List<CourseSummary> findCourseSummariesByInstructorId(int theId);
+
+    // counts ... computed by the database, the collections are never loaded
+
+    long countStudentsByCourseId(int theId);
+
+    long countReviewsByCourseId(int theId);
+
+    List<CourseCount> findEnrolmentCounts();
+
+    List<CourseCount> findTopCoursesByEnrolment(int theLimit);
+
+    List<InstructorCount> findReviewCountsByInstructor();
+
+    // reviews of a course, a page at a time ... Course.reviews is never loaded
+
+    // the first theLimit reviews with an id after theCursor, in id order
+    // (pass 0 for the first page, then the id of the last review of the page before)
+    List<Review> findReviewsForCourse(int theCourseId, int theCursor, int theLimit);
+
+    void addReviews(int theCourseId, List<Review> theReviews);
+
+    // registration day ... writes course_student directly, enrolments that exist already are skipped.
+    // Loaded courses and students whose enrolments changed are detached, find them again
+    void enrolStudents(List<Enrolment> theEnrolments);
 }
 
 
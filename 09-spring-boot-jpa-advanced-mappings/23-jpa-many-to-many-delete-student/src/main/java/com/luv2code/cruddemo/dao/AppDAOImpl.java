@@ -3,25 +3,72 @@ package com.luv2code.cruddemo.dao;
 import com.luv2code.cruddemo.entity.Course;
 import com.luv2code.cruddemo.entity.Instructor;
 import com.luv2code.cruddemo.entity.InstructorDetail;
+import com.luv2code.cruddemo.entity.Review;
 import com.luv2code.cruddemo.entity.Student;
+import jakarta.persistence.EntityGraph;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
+import org.hibernate.Cache;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.query.NativeQuery;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
-
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Repository
 public class AppDAOImpl implements AppDAO {
 
+    // fetch only what's in the graph ... everything else is lazy
+    private static final String FETCH_GRAPH_HINT = "jakarta.persistence.fetchgraph";
+
+    // one aggregated statement ... the constructor expression builds the records straight from the rows
+    private static final String COURSE_SUMMARY_QUERY =
+            "select new com.luv2code.cruddemo.dao.CourseSummary("
+            + "c.id, c.title, concat(i.firstName, ' ', i.lastName), count(r)) "
+            + "from Course c left join c.instructor i left join c.reviews r "
+            + "%s "
+            + "group by c.id, c.title, i.firstName, i.lastName "
+            + "order by c.title, c.id";
+
+    // group by course ... course_student and review are both indexed on course_id
+    private static final String ENROLMENT_COUNT_QUERY =
+            "select new com.luv2code.cruddemo.dao.CourseCount(c.id, c.title, count(s)) "
+            + "from Course c left join c.students s "
+            + "group by c.id, c.title ";
+
+    // reviews written per JDBC batch by addReviews
+    private static final int REVIEW_BATCH_SIZE = 500;
+
+    // course_student rows per JDBC batch ... and per transaction, in enrolStudents
+    private static final int ENROLMENT_BATCH_SIZE = 1000;
+
     // define field for entity manager
     private EntityManager entityManager;
 
+    // for the chunks of enrolStudents ... each one commits on its own
+    private TransactionTemplate transactionTemplate;
+
     // inject entity manager using constructor injection
     @Autowired
-    public AppDAOImpl(EntityManager entityManager) {
+    public AppDAOImpl(EntityManager entityManager, TransactionTemplate transactionTemplate) {
         this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
     }
 
     @Override
@@ -39,17 +86,29 @@ public class AppDAOImpl implements AppDAO {
     @Transactional
     public void deleteInstructorById(int theId) {
 
-        // retrieve the instructor
+        // retrieve the instructor ... without the courses
         Instructor tempInstructor = entityManager.find(Instructor.class, theId);
 
-        // get the courses
-        List<Course> courses = tempInstructor.getCourses();
+        if (tempInstructor == null) {
+            return;
+        }
 
-        // break association of all courses for the instructor
-        for (Course tempCourse : courses) {
-            tempCourse.setInstructor(null);
+        // break association of the courses already loaded ... these are written on flush
+        for (Course tempCourse : managed(Course.class)) {
+            if (tempCourse.getInstructor() != null && tempCourse.getInstructor().getId() == theId) {
+                tempCourse.setInstructor(null);
+            }
         }
 
+        entityManager.flush();
+
+        // break association of all other courses with one statement ... no need to load them
+        //
+        // (a JPQL bulk update also evicts the course entries from the second-level cache)
+        entityManager.createQuery("update Course set instructor = null where instructor.id = :data")
+                .setParameter("data", theId)
+                .executeUpdate();
+
         // delete the instructor
         entityManager.remove(tempInstructor);
     }
@@ -91,19 +150,7 @@ public class AppDAOImpl implements AppDAO {
 
     @Override
     public Instructor findInstructorByIdJoinFetch(int theId) {
-
-        // create query
-        TypedQuery<Instructor> query = entityManager.createQuery(
-                                                "select i from Instructor i "
-                                                    + "JOIN FETCH i.courses "
-                                                    + "JOIN FETCH i.instructorDetail "
-                                                    + "where i.id = :data", Instructor.class);
-        query.setParameter("data", theId);
-
-        // execute query
-        Instructor instructor = query.getSingleResult();
-
-        return instructor;
+        return findInstructorById(theId, FetchProfile.INSTRUCTOR_WITH_COURSES_AND_DETAIL);
     }
 
     @Override
@@ -142,95 +189,330 @@ public class AppDAOImpl implements AppDAO {
 
     @Override
     public Course findCourseAndReviewsByCourseId(int theId) {
+        return findCourseById(theId, FetchProfile.COURSE_WITH_REVIEWS);
+    }
 
-        // create query
-        TypedQuery<Course> query = entityManager.createQuery(
-                "select c from Course c "
-                + "JOIN FETCH c.reviews "
-                + "where c.id = :data", Course.class);
+    @Override
+    public Course findCourseAndStudentsByCourseId(int theId) {
+        return findCourseById(theId, FetchProfile.COURSE_WITH_STUDENTS);
+    }
 
-        query.setParameter("data", theId);
+    @Override
+    public Student findStudentAndCoursesByStudentId(int theId) {
+        return findStudentById(theId, FetchProfile.STUDENT_WITH_COURSES);
+    }
 
-        // execute query
-        Course course = query.getSingleResult();
+    @Override
+    @Transactional
+    public void update(Student tempStudent) {
+        entityManager.merge(tempStudent);
+    }
+
+    @Override
+    @Transactional
+    public void deleteStudentById(int theId) {
+
+        // retrieve the student ... without the courses
+        Student tempStudent = entityManager.find(Student.class, theId);
+
+        if (tempStudent != null) {
+
+            // remove the student from course rosters already loaded ... one row each, on flush
+            for (Course tempCourse : managed(Course.class)) {
+                if (Hibernate.isInitialized(tempCourse.getStudents())) {
+                    tempCourse.getStudents().remove(tempStudent);
+                }
+            }
+
+            entityManager.flush();
+
+            // delete all other enrolments with one statement ... no course rosters are loaded
+            //
+            // course_student has no entity, so this is SQL ... the query space tells Hibernate
+            // to evict only the course/student collections from the second-level cache
+            entityManager.createNativeQuery("delete from course_student where student_id = ?")
+                    .setParameter(1, theId)
+                    .unwrap(NativeQuery.class)
+                    .addSynchronizedQuerySpace("course_student")
+                    .executeUpdate();
+
+            // Now delete the student
+            entityManager.remove(tempStudent);
+        }
+    }
 
-        return course;
+    @Override
+    public Instructor findInstructorById(int theId, FetchProfile theProfile) {
+        return find(Instructor.class, theId, theProfile);
     }
 
     @Override
-    public Course findCourseAndStudentsByCourseId(int theId) {
+    public Course findCourseById(int theId, FetchProfile theProfile) {
+        return find(Course.class, theId, theProfile);
+    }
 
-        // create query
-        TypedQuery<Course> query = entityManager.createQuery(
-                "select c from Course c "
-                        + "JOIN FETCH c.students "
-                        + "where c.id = :data", Course.class);
+    @Override
+    public Student findStudentById(int theId, FetchProfile theProfile) {
+        return find(Student.class, theId, theProfile);
+    }
+
+    @Override
+    public List<Course> findCoursesByInstructorId(int theId, FetchProfile theProfile) {
 
+        // create query ... the fetch graph decides which associations come along
+        TypedQuery<Course> query = entityManager.createQuery(
+                                    "from Course where instructor.id = :data", Course.class);
         query.setParameter("data", theId);
+        query.setHint(FETCH_GRAPH_HINT, entityGraph(Course.class, theProfile));
 
         // execute query
-        Course course = query.getSingleResult();
+        return query.getResultList();
+    }
 
-        return course;
+    @Override
+    public List<CourseSummary> findCourseSummaries() {
+        return entityManager.createQuery(COURSE_SUMMARY_QUERY.formatted(""), CourseSummary.class)
+                .getResultList();
     }
 
     @Override
-    public Student findStudentAndCoursesByStudentId(int theId) {
+    public List<CourseSummary> findCourseSummariesByInstructorId(int theId) {
+        return entityManager.createQuery(COURSE_SUMMARY_QUERY.formatted("where i.id = :data"), CourseSummary.class)
+                .setParameter("data", theId)
+                .getResultList();
+    }
 
-        // create query
-        TypedQuery<Student> query = entityManager.createQuery(
-                "select s from Student s "
-                        + "JOIN FETCH s.courses "
-                        + "where s.id = :data", Student.class);
+    @Override
+    public long countStudentsByCourseId(int theId) {
+        return entityManager.createQuery(
+                        "select count(s) from Course c join c.students s where c.id = :data", Long.class)
+                .setParameter("data", theId)
+                .getSingleResult();
+    }
 
-        query.setParameter("data", theId);
+    @Override
+    public long countReviewsByCourseId(int theId) {
+        return entityManager.createQuery(
+                        "select count(r) from Course c join c.reviews r where c.id = :data", Long.class)
+                .setParameter("data", theId)
+                .getSingleResult();
+    }
 
-        // execute query
-        Student student = query.getSingleResult();
+    @Override
+    public List<CourseCount> findEnrolmentCounts() {
+        return entityManager.createQuery(ENROLMENT_COUNT_QUERY + "order by c.title, c.id", CourseCount.class)
+                .getResultList();
+    }
 
-        return student;
+    @Override
+    public List<CourseCount> findTopCoursesByEnrolment(int theLimit) {
+        return entityManager.createQuery(ENROLMENT_COUNT_QUERY + "order by count(s) desc, c.id", CourseCount.class)
+                .setMaxResults(theLimit)
+                .getResultList();
     }
 
     @Override
-    @Transactional
-    public void update(Student tempStudent) {
-        entityManager.merge(tempStudent);
+    public List<InstructorCount> findReviewCountsByInstructor() {
+        return entityManager.createQuery(
+                        "select new com.luv2code.cruddemo.dao.InstructorCount("
+                        + "i.id, concat(i.firstName, ' ', i.lastName), count(r)) "
+                        + "from Instructor i left join i.courses c left join c.reviews r "
+                        + "group by i.id, i.firstName, i.lastName "
+                        + "order by count(r) desc, i.id", InstructorCount.class)
+                .getResultList();
+    }
+
+    @Override
+    public List<Review> findReviewsForCourse(int theCourseId, int theCursor, int theLimit) {
+
+        // keyset paging ... the (course_id, id) index goes straight to the page, however deep it is
+        return entityManager.createQuery(
+                        "select r from Course c join c.reviews r "
+                        + "where c.id = :data and r.id > :cursor order by r.id", Review.class)
+                .setParameter("data", theCourseId)
+                .setParameter("cursor", theCursor)
+                .setMaxResults(theLimit)
+                .getResultList();
     }
 
     @Override
     @Transactional
-    public void deleteStudentById(int theId) {
+    public void addReviews(int theCourseId, List<Review> theReviews) {
 
-        // retrieve the student
-        Student tempStudent = entityManager.find(Student.class, theId);
+        // retrieve the course ... without the reviews
+        Course tempCourse = entityManager.find(Course.class, theCourseId);
 
-        if (tempStudent != null) {
+        if (tempCourse == null) {
+            throw new IllegalArgumentException("Did not find course id - " + theCourseId);
+        }
 
-            // get the courses
-            List<Course> courses = tempStudent.getCourses();
+        // the reviews are in memory already ... add them the usual way, so the collection stays right
+        if (Hibernate.isInitialized(tempCourse.getReviews())) {
+            theReviews.forEach(tempCourse::addReview);
+            return;
+        }
 
-            // break association of all courses for the student
-            for (Course tempCourse : courses) {
-                tempCourse.getStudents().remove(tempStudent);
+        // otherwise write the rows directly, in JDBC batches, and hand back the generated ids
+        //
+        // the reviews are not managed afterwards ... and Course.reviews was never loaded
+        entityManager.unwrap(Session.class).doWork(connection -> {
+
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "insert into review (comment, course_id) values (?, ?)", Statement.RETURN_GENERATED_KEYS)) {
+
+                for (int from = 0; from < theReviews.size(); from += REVIEW_BATCH_SIZE) {
+                    List<Review> batch = theReviews.subList(from, Math.min(from + REVIEW_BATCH_SIZE, theReviews.size()));
+
+                    for (Review tempReview : batch) {
+                        statement.setString(1, tempReview.getComment());
+                        statement.setInt(2, theCourseId);
+                        statement.addBatch();
+                    }
+
+                    statement.executeBatch();
+
+                    try (ResultSet keys = statement.getGeneratedKeys()) {
+                        for (Review tempReview : batch) {
+                            keys.next();
+                            tempReview.setId(keys.getInt(1));
+                        }
+                    }
+                }
             }
+        });
 
-            // Now delete the student
-            entityManager.remove(tempStudent);
+        // Hibernate didn't see these inserts ... drop any cached copy of the collection, once
+        // they are committed. Evicting now would let another transaction put the old reviews
+        // back into the cache before this one commits
+        Cache cache = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getCache();
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+            @Override
+            public void afterCommit() {
+                cache.evictCollectionData(Course.class.getName() + ".reviews", theCourseId);
+            }
+        });
+    }
+
+    @Override
+    public void enrolStudents(List<Enrolment> theEnrolments) {
+
+        List<int[]> rows = new ArrayList<>();
+        Set<Integer> courseIds = new HashSet<>();
+        Set<Integer> studentIds = new HashSet<>();
+
+        for (Enrolment tempEnrolment : theEnrolments) {
+            courseIds.add(tempEnrolment.courseId());
+
+            for (int studentId : tempEnrolment.studentIds()) {
+                rows.add(new int[] { tempEnrolment.courseId(), studentId });
+                studentIds.add(studentId);
+            }
+        }
+
+        // one transaction per chunk ... a failing chunk is rolled back, the ones before it stay
+        //
+        // (inside a transaction of the caller, the chunks simply join it)
+        for (int from = 0; from < rows.size(); from += ENROLMENT_BATCH_SIZE) {
+            List<int[]> chunk = rows.subList(from, Math.min(from + ENROLMENT_BATCH_SIZE, rows.size()));
+
+            transactionTemplate.executeWithoutResult(status -> insertEnrolments(chunk));
         }
+
+        transactionTemplate.executeWithoutResult(status -> detachEnrolments(courseIds, studentIds));
     }
 
+    private void insertEnrolments(List<int[]> rows) {
 
-}
+        // write pending changes first ... the batch below goes around the persistence context
+        entityManager.flush();
+
+        // insert ignore ... skips enrolments that exist already (and ids that don't exist)
+        entityManager.unwrap(Session.class).doWork(connection -> {
+
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "insert ignore into course_student (course_id, student_id) values (?, ?)")) {
+
+                for (int[] row : rows) {
+                    statement.setInt(1, row[0]);
+                    statement.setInt(2, row[1]);
+                    statement.addBatch();
+                }
+
+                statement.executeBatch();
+            }
+        });
+    }
+
+    // the rosters and course lists in memory don't have the new rows yet ... their owners are
+    // detached, and the next find loads them again, with one query per collection
+    //
+    // (refresh would cascade REFRESH to every student on a roster, one select per student.
+    // DETACH cascades too, but only through what is loaded, and without any statements ...
+    // pending changes are flushed first, so none are lost)
+
+    private void detachEnrolments(Set<Integer> courseIds, Set<Integer> studentIds) {
 
+        entityManager.flush();
 
+        for (Course tempCourse : managed(Course.class)) {
+            if (courseIds.contains(tempCourse.getId()) && Hibernate.isInitialized(tempCourse.getStudents())
+                    && entityManager.contains(tempCourse)) {
+                entityManager.detach(tempCourse);
+            }
+        }
+
+        for (Student tempStudent : managed(Student.class)) {
+            if (studentIds.contains(tempStudent.getId()) && Hibernate.isInitialized(tempStudent.getCourses())
+                    && entityManager.contains(tempStudent)) {
+                entityManager.detach(tempStudent);
+            }
+        }
+    }
+
+    // a query, not entityManager.find ... find hands back an instance that is already loaded
+    // (or in the second-level cache) as it is, without the collections of the graph
+
+    private <T> T find(Class<T> entityClass, int theId, FetchProfile theProfile) {
 
+        EntityGraph<?> graph = entityGraph(entityClass, theProfile);
 
+        List<T> result = entityManager.createQuery(
+                                "from " + entityClass.getSimpleName() + " where id = :data", entityClass)
+                .setParameter("data", theId)
+                .setHint(FETCH_GRAPH_HINT, graph)
+                .getResultList();
 
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    // the entities of a type in the current persistence context ... loaded, not queried
 
+    private <T> List<T> managed(Class<T> entityClass) {
 
+        List<T> entities = new ArrayList<>();
 
+        for (Map.Entry<Object, EntityEntry> entry : entityManager.unwrap(SharedSessionContractImplementor.class)
+                .getPersistenceContextInternal()
+                .reentrantSafeEntityEntries()) {
 
+            if (entityClass.isInstance(entry.getKey())) {
+                entities.add(entityClass.cast(entry.getKey()));
+            }
+        }
 
+        return entities;
+    }
 
+    private EntityGraph<?> entityGraph(Class<?> entityClass, FetchProfile theProfile) {
 
+        if (theProfile.getEntityClass() != entityClass) {
+            throw new IllegalArgumentException(
+                    theProfile + " is for " + theProfile.getEntityClass().getSimpleName()
+                    + ", not " + entityClass.getSimpleName());
+        }
 
+        return entityManager.getEntityGraph(theProfile.getGraphName());
+    }
+}
@@ -0,0 +1,7 @@
+package com.luv2code.cruddemo.dao;
+
+/**
+ * A count for one course ... students enrolled or reviews written, depending on the query.
+ */
+public record CourseCount(int courseId, String title, long count) {
+}
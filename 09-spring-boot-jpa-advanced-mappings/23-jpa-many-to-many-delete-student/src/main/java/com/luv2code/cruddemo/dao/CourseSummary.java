@@ -0,0 +1,9 @@
+package com.luv2code.cruddemo.dao;
+
+/**
+ * One line of the course catalogue ... read straight from the query, not a managed entity.
+ *
+ * @param instructorName first and last name, or null if the course has no instructor
+ */
+public record CourseSummary(int id, String title, String instructorName, long reviewCount) {
+}
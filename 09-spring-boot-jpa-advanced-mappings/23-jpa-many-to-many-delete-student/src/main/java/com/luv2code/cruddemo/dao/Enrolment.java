@@ -0,0 +1,9 @@
+package com.luv2code.cruddemo.dao;
+
+import java.util.List;
+
+/**
+ * Students to enrol in one course ... the input of {@link AppDAO#enrolStudents(List)}.
+ */
+public record Enrolment(int courseId, List<Integer> studentIds) {
+}
@@ -0,0 +1,42 @@
+package com.luv2code.cruddemo.dao;
+
+import com.luv2code.cruddemo.entity.Course;
+import com.luv2code.cruddemo.entity.Instructor;
+import com.luv2code.cruddemo.entity.Student;
+
+/**
+ * Named shapes of the object graph that AppDAO can load in one go.
+ *
+ * Each profile is backed by a @NamedEntityGraph on its entity. The associations in the graph
+ * are fetched with the entity; everything else is left lazy. Touching a lazy association
+ * later is reported by {@link LazyLoadGuard}.
+ */
+public enum FetchProfile {
+
+    INSTRUCTOR_WITH_DETAIL(Instructor.class, "Instructor.withDetail"),
+    INSTRUCTOR_WITH_COURSES(Instructor.class, "Instructor.withCourses"),
+    INSTRUCTOR_WITH_COURSES_AND_DETAIL(Instructor.class, "Instructor.withCoursesAndDetail"),
+
+    COURSE_WITH_INSTRUCTOR(Course.class, "Course.withInstructor"),
+    COURSE_WITH_REVIEWS(Course.class, "Course.withReviews"),
+    COURSE_WITH_STUDENTS(Course.class, "Course.withStudents"),
+
+    STUDENT_WITH_COURSES(Student.class, "Student.withCourses");
+
+    private final Class<?> entityClass;
+
+    private final String graphName;
+
+    FetchProfile(Class<?> entityClass, String graphName) {
+        this.entityClass = entityClass;
+        this.graphName = graphName;
+    }
+
+    public Class<?> getEntityClass() {
+        return entityClass;
+    }
+
+    public String getGraphName() {
+        return graphName;
+    }
+}
@@ -0,0 +1,7 @@
+package com.luv2code.cruddemo.dao;
+
+/**
+ * A count for one instructor, over all of their courses.
+ */
+public record InstructorCount(int instructorId, String instructorName, long count) {
+}
@@ -0,0 +1,84 @@
+package com.luv2code.cruddemo.dao;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.HibernateException;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports lazy loads of collections ... the N+1 queries a {@link FetchProfile} should have avoided.
+ *
+ * A collection that is part of the fetch profile is loaded with its owner, so it never gets
+ * here. Any collection that is initialised on first access was left out of the graph.
+ *
+ * app.lazy-loads=ignore (default) turns it off, fail throws (use it in tests), log logs a warning.
+ * It is off by default because the @BatchSize loads of a listing (see entity/FetchSizes) are
+ * lazy loads too, on purpose ... log would warn once for every batch.
+ *
+ * Only collections are covered. Hibernate has no event for a lazy to-one association (such as
+ * InstructorDetail.instructor) being loaded, so those are not reported.
+ */
+@Component
+public class LazyLoadGuard implements InitializeCollectionEventListener {
+
+    public enum Mode { IGNORE, LOG, FAIL }
+
+    private static final Logger logger = LoggerFactory.getLogger(LazyLoadGuard.class);
+
+    private volatile Mode mode;
+
+    public LazyLoadGuard(EntityManagerFactory entityManagerFactory,
+                         @Value("${app.lazy-loads:ignore}") Mode mode) {
+
+        this.mode = mode;
+
+        // runs before Hibernate's own listener ... so in fail mode the query never happens
+        //
+        // (registered even when ignoring, so the mode can be switched later)
+
+        entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class)
+                .prependListeners(EventType.INIT_COLLECTION, this);
+    }
+
+    // for tests that load lazily on purpose
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    @Override
+    public void onInitializeCollection(InitializeCollectionEvent event) throws HibernateException {
+
+        Mode mode = this.mode;
+
+        if (mode == Mode.IGNORE) {
+            return;
+        }
+
+        String message = "Lazy load of " + event.getCollection().getRole()
+                + " for id " + event.getAffectedOwnerIdOrNull()
+                + " ... add it to the fetch profile";
+
+        if (mode == Mode.FAIL) {
+            throw new LazyLoadException(message);
+        }
+
+        logger.warn(message);
+    }
+
+    public static class LazyLoadException extends HibernateException {
+
+        public LazyLoadException(String message) {
+            super(message);
+        }
+    }
+}
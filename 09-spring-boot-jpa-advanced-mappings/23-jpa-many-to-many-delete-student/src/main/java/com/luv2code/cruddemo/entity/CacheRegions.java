@@ -0,0 +1,30 @@
+package com.luv2code.cruddemo.entity;
+
+/**
+ * The second-level cache regions of the instructor/course graph.
+ *
+ * Each region is a JCache cache of its own, with its size and time to live set in
+ * application.conf (the Caffeine JCache configuration). A region that isn't configured there
+ * fails at startup, see hibernate.javax.cache.missing_cache_strategy.
+ *
+ * All regions are read-write ... Hibernate updates or evicts the entries when the entities
+ * and collections change through the persistence context.
+ */
+public final class CacheRegions {
+
+    public static final String INSTRUCTOR = "instructor";
+
+    public static final String INSTRUCTOR_DETAIL = "instructor-detail";
+
+    public static final String COURSE = "course";
+
+    // the elements of course-reviews ... a cached collection only holds their ids
+    public static final String REVIEW = "review";
+
+    public static final String INSTRUCTOR_COURSES = "instructor-courses";
+
+    public static final String COURSE_REVIEWS = "course-reviews";
+
+    private CacheRegions() {
+    }
+}
@@ -1,12 +1,25 @@
 package com.luv2code.cruddemo.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 @Entity
 @Table(name="course")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.COURSE)
+@NamedEntityGraph(name = "Course.withInstructor",
+        attributeNodes = @NamedAttributeNode("instructor"))
+@NamedEntityGraph(name = "Course.withReviews",
+        attributeNodes = @NamedAttributeNode("reviews"))
+@NamedEntityGraph(name = "Course.withStudents",
+        attributeNodes = @NamedAttributeNode("students"))
 public class Course {
 
     // define our fields
@@ -34,6 +47,8 @@ public class Course {
 
     @OneToMany(fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     @JoinColumn(name = "course_id")
+    @BatchSize(size = FetchSizes.COURSE_REVIEWS)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.COURSE_REVIEWS)
     private List<Review> reviews;
 
 
@@ -45,7 +60,9 @@ public class Course {
             joinColumns = @JoinColumn(name = "course_id"),
             inverseJoinColumns = @JoinColumn(name = "student_id")
     )
-    private List<Student> students;
+    @OrderBy("lastName, firstName")
+    @BatchSize(size = FetchSizes.COURSE_STUDENTS)
+    private Set<Student> students;
 
     public Course() {
 
@@ -98,11 +115,11 @@ public class Course {
         reviews.add(theReview);
     }
 
-    public List<Student> getStudents() {
+    public Set<Student> getStudents() {
         return students;
     }
 
-    public void setStudents(List<Student> students) {
+    public void setStudents(Set<Student> students) {
         this.students = students;
     }
 
@@ -111,12 +128,33 @@ public class Course {
     public void addStudent(Student theStudent) {
 
         if (students == null) {
-            students = new ArrayList<>();
+            students = new LinkedHashSet<>();
         }
 
         students.add(theStudent);
     }
 
+    // equal when they are the same row ... the hash code never changes, not even when
+    // a new course gets its id, so a course is never "lost" inside a Set
+    //
+    // (one hash code for all courses is fine for Student.courses, which stays small ...
+    // Student hashes on its email, as a course roster can be large)
+
+    @Override
+    public boolean equals(Object other) {
+
+        if (this == other) {
+            return true;
+        }
+
+        return other instanceof Course otherCourse && id != 0 && id == otherCourse.getId();
+    }
+
+    @Override
+    public int hashCode() {
+        return Course.class.hashCode();
+    }
+
     @Override
     public String toString() {
         return "Course{" +
@@ -0,0 +1,27 @@
+package com.luv2code.cruddemo.entity;
+
+/**
+ * How many lazy collections (or entities) Hibernate loads per query when one of them is touched.
+ *
+ * With a batch size of 50, touching getCourses() on each of 500 loaded instructors costs
+ * 10 queries instead of 500. Larger batches mean fewer, but bigger, queries ... tune each
+ * association for the typical size of its collections.
+ *
+ * Associations without their own @BatchSize use spring.jpa.properties.hibernate.default_batch_fetch_size.
+ */
+public final class FetchSizes {
+
+    public static final int INSTRUCTOR_COURSES = 50;
+
+    public static final int INSTRUCTOR_DETAIL = 50;
+
+    public static final int COURSE_REVIEWS = 50;
+
+    // course enrolments can be large ... keep each batch smaller
+    public static final int COURSE_STUDENTS = 20;
+
+    public static final int STUDENT_COURSES = 50;
+
+    private FetchSizes() {
+    }
+}
@@ -1,12 +1,23 @@
 package com.luv2code.cruddemo.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
 @Table(name="instructor")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.INSTRUCTOR)
+@NamedEntityGraph(name = "Instructor.withDetail",
+        attributeNodes = @NamedAttributeNode("instructorDetail"))
+@NamedEntityGraph(name = "Instructor.withCourses",
+        attributeNodes = @NamedAttributeNode("courses"))
+@NamedEntityGraph(name = "Instructor.withCoursesAndDetail",
+        attributeNodes = { @NamedAttributeNode("courses"), @NamedAttributeNode("instructorDetail") })
 public class Instructor {
 
     // annotate the class as an entity and map to db table
@@ -45,6 +56,8 @@ public class Instructor {
                fetch = FetchType.LAZY,
                cascade = {CascadeType.PERSIST, CascadeType.MERGE,
                           CascadeType.DETACH, CascadeType.REFRESH})
+    @BatchSize(size = FetchSizes.INSTRUCTOR_COURSES)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.INSTRUCTOR_COURSES)
     private List<Course> courses;
 
     public Instructor() {
@@ -1,9 +1,15 @@
 package com.luv2code.cruddemo.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name="instructor_detail")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.INSTRUCTOR_DETAIL)
+@BatchSize(size = FetchSizes.INSTRUCTOR_DETAIL)
 public class InstructorDetail {
 
     // annotate the class as an entity and map to db table
@@ -30,7 +36,11 @@ public class InstructorDetail {
     private String hobby;
 
     // add @OneToOne annotation
+    //
+    // lazy ... only takes effect in enhanced classes (see hibernate-maven-plugin in pom.xml),
+    // otherwise Hibernate has to query the instructor table to find out if there is one
     @OneToOne(mappedBy = "instructorDetail",
+            fetch = FetchType.LAZY,
             cascade = {CascadeType.DETACH, CascadeType.MERGE, CascadeType.PERSIST, CascadeType.REFRESH})
     private Instructor instructor;
 
@@ -1,12 +1,16 @@
 package com.luv2code.cruddemo.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
 
 @Entity
 @Table(name = "student")
+@NamedEntityGraph(name = "Student.withCourses",
+        attributeNodes = @NamedAttributeNode("courses"))
 public class Student {
 
     @Id
@@ -20,14 +24,17 @@ public class Student {
     @Column(name = "last_name")
     private String lastName;
 
-    @Column(name = "email")
+    // the business key of a student ... unique and required in the schema, equals/hashCode rely on it
+    @Column(name = "email", nullable = false, unique = true)
     private String email;
 
     @ManyToMany(fetch = FetchType.LAZY,
             cascade = {CascadeType.PERSIST, CascadeType.MERGE,
                     CascadeType.DETACH, CascadeType.REFRESH},
             mappedBy = "students")
-    private List<Course> courses;
+    @OrderBy("title")
+    @BatchSize(size = FetchSizes.STUDENT_COURSES)
+    private Set<Course> courses;
 
     public Student() {
 
@@ -71,11 +78,11 @@ public class Student {
         this.email = email;
     }
 
-    public List<Course> getCourses() {
+    public Set<Course> getCourses() {
         return courses;
     }
 
-    public void setCourses(List<Course> courses) {
+    public void setCourses(Set<Course> courses) {
         this.courses = courses;
     }
 
@@ -84,13 +91,36 @@ public class Student {
     public void addCourse(Course theCourse) {
 
         if (courses == null) {
-            courses = new ArrayList<>();
+            courses = new LinkedHashSet<>();
         }
 
         courses.add(theCourse);
         theCourse.addStudent(this);
     }
 
+    // equal when they have the same email ... unique in the database, and known before the
+    // student is saved, so the hash code doesn't change on save and spreads a course roster of
+    // thousands of students over the whole hash table (Course can keep its constant hash code,
+    // a student only takes a few courses)
+    //
+    // a new email changes the hash code ... don't change it while the student sits in a loaded
+    // Course.students
+
+    @Override
+    public boolean equals(Object other) {
+
+        if (this == other) {
+            return true;
+        }
+
+        return other instanceof Student otherStudent && email != null && email.equals(otherStudent.getEmail());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(email);
+    }
+
     @Override
     public String toString() {
         return "Student{" +
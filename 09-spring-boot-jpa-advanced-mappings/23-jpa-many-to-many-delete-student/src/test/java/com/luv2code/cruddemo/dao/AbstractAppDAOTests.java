@@ -0,0 +1,65 @@
+package com.luv2code.cruddemo.dao;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+// the setup the AppDAO tests share ... one set of properties, so they all run in one Spring context
+//
+// each test runs in a transaction that is rolled back ... the test data never reaches the database
+// (SecondLevelCacheTests opts out, it needs committed data).
+// Lazy loads fail unless a test switches the guard off, statistics and SQL statements are
+// counted from the last startNewRequest()
+
+@SpringBootTest(properties = {
+        "app.lazy-loads=fail",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.luv2code.cruddemo.dao.SqlStatementRecorder"
+})
+@Transactional
+abstract class AbstractAppDAOTests {
+
+    @Autowired
+    protected AppDAO appDAO;
+
+    @Autowired
+    protected EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private LazyLoadGuard lazyLoadGuard;
+
+    protected Statistics statistics;
+
+    @BeforeEach
+    void failOnLazyLoads() {
+
+        lazyLoadGuard.setMode(LazyLoadGuard.Mode.FAIL);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    // for tests that load lazily on purpose
+
+    protected void allowLazyLoads() {
+        lazyLoadGuard.setMode(LazyLoadGuard.Mode.IGNORE);
+    }
+
+    // start from an empty persistence context, like a new request would ... and count from here
+
+    protected void startNewRequest() {
+
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics.clear();
+        SqlStatementRecorder.clear();
+    }
+}
@@ -0,0 +1,102 @@
+package com.luv2code.cruddemo.dao;
+
+import com.luv2code.cruddemo.entity.Course;
+import com.luv2code.cruddemo.entity.Instructor;
+import com.luv2code.cruddemo.entity.Review;
+import com.luv2code.cruddemo.entity.Student;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AggregateQueryTests extends AbstractAppDAOTests {
+
+    private int instructorId;
+
+    private int popularCourseId;
+
+    private int quietCourseId;
+
+    @BeforeEach
+    void createCourses() {
+
+        Instructor tempInstructor = new Instructor("Aggregate", "Queries", "aggregate.queries@luv2code.com");
+
+        Course popular = new Course("Aggregates - Popular");
+        popular.addReview(new Review("Great course"));
+        popular.addReview(new Review("Cool course"));
+
+        for (int i = 0; i < 3; i++) {
+            popular.addStudent(new Student("Counted", "Student" + i, "counted." + i + "@luv2code.com"));
+        }
+
+        Course quiet = new Course("Aggregates - Quiet");
+        quiet.addStudent(new Student("Lonely", "Student", "lonely.student@luv2code.com"));
+
+        tempInstructor.add(popular);
+        tempInstructor.add(quiet);
+
+        appDAO.save(tempInstructor);
+        instructorId = tempInstructor.getId();
+        popularCourseId = popular.getId();
+        quietCourseId = quiet.getId();
+
+        startNewRequest();
+    }
+
+    @Test
+    void countsForOneCourse() {
+
+        assertEquals(3, appDAO.countStudentsByCourseId(popularCourseId));
+        assertEquals(2, appDAO.countReviewsByCourseId(popularCourseId));
+        assertEquals(1, appDAO.countStudentsByCourseId(quietCourseId));
+        assertEquals(0, appDAO.countReviewsByCourseId(quietCourseId));
+
+        assertEquals(4, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getCollectionLoadCount());
+    }
+
+    @Test
+    void enrolmentCountsPerCourse() {
+
+        List<CourseCount> counts = appDAO.findEnrolmentCounts().stream()
+                .filter(count -> count.courseId() == popularCourseId || count.courseId() == quietCourseId)
+                .toList();
+
+        assertEquals(List.of(
+                new CourseCount(popularCourseId, "Aggregates - Popular", 3),
+                new CourseCount(quietCourseId, "Aggregates - Quiet", 1)), counts);
+
+        assertEquals(0, statistics.getCollectionLoadCount());
+    }
+
+    @Test
+    void topCoursesAreOrderedByEnrolment() {
+
+        List<CourseCount> top = appDAO.findTopCoursesByEnrolment(5);
+
+        assertTrue(top.size() <= 5);
+
+        for (int i = 1; i < top.size(); i++) {
+            assertTrue(top.get(i - 1).count() >= top.get(i).count());
+        }
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getCollectionLoadCount());
+    }
+
+    @Test
+    void reviewCountsPerInstructor() {
+
+        InstructorCount count = appDAO.findReviewCountsByInstructor().stream()
+                .filter(each -> each.instructorId() == instructorId)
+                .findFirst()
+                .orElseThrow();
+
+        assertEquals(new InstructorCount(instructorId, "Aggregate Queries", 2), count);
+        assertEquals(0, statistics.getCollectionLoadCount());
+    }
+}
@@ -0,0 +1,59 @@
+package com.luv2code.cruddemo.dao;
+
+import com.luv2code.cruddemo.entity.Course;
+import com.luv2code.cruddemo.entity.FetchSizes;
+import com.luv2code.cruddemo.entity.Instructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BatchFetchTests extends AbstractAppDAOTests {
+
+    private static final int INSTRUCTORS = 500;
+
+    private static final int COURSES_PER_INSTRUCTOR = 2;
+
+    @BeforeEach
+    void createInstructorsWithCourses() {
+
+        // the course lists are loaded lazily on purpose ... in batches
+        allowLazyLoads();
+
+        for (int i = 0; i < INSTRUCTORS; i++) {
+            Instructor tempInstructor = new Instructor("Batch", "Fetch" + i, "batch.fetch." + i + "@luv2code.com");
+
+            for (int c = 0; c < COURSES_PER_INSTRUCTOR; c++) {
+                tempInstructor.add(new Course("Batch Fetching " + i + "-" + c));
+            }
+
+            appDAO.save(tempInstructor);
+        }
+
+        startNewRequest();
+    }
+
+    @Test
+    void coursesOfAListingLoadInBatches() {
+
+        List<Instructor> instructors = entityManager.createQuery(
+                "from Instructor where email like 'batch.fetch.%'", Instructor.class).getResultList();
+
+        int courses = 0;
+
+        for (Instructor tempInstructor : instructors) {
+            courses += tempInstructor.getCourses().size();
+        }
+
+        assertEquals(INSTRUCTORS, instructors.size());
+        assertEquals(INSTRUCTORS * COURSES_PER_INSTRUCTOR, courses);
+
+        // one query for the instructors, then one per batch of course collections ... not one per instructor
+
+        int courseBatches = (INSTRUCTORS + FetchSizes.INSTRUCTOR_COURSES - 1) / FetchSizes.INSTRUCTOR_COURSES;
+
+        assertEquals(1 + courseBatches, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,117 @@
+package com.luv2code.cruddemo.dao;
+
+import com.luv2code.cruddemo.entity.Course;
+import com.luv2code.cruddemo.entity.Student;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// the test's transaction is rolled back ... so the chunks of enrolStudents join it instead of committing
+
+class BulkEnrolmentTests extends AbstractAppDAOTests {
+
+    private static final int STUDENTS = 2_500;
+
+    private int firstCourseId;
+
+    private int secondCourseId;
+
+    private final List<Integer> studentIds = new ArrayList<>();
+
+    @BeforeEach
+    void createCoursesAndStudents() {
+
+        allowLazyLoads();
+
+        Course first = new Course("Bulk Enrolment - First");
+        Course second = new Course("Bulk Enrolment - Second");
+
+        appDAO.save(first);
+        appDAO.save(second);
+        firstCourseId = first.getId();
+        secondCourseId = second.getId();
+
+        for (int i = 0; i < STUDENTS; i++) {
+            Student tempStudent = new Student("Bulk", "Student" + i, "bulk." + i + "@luv2code.com");
+            entityManager.persist(tempStudent);
+            studentIds.add(tempStudent.getId());
+
+            if (i % 500 == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+
+        startNewRequest();
+    }
+
+    @Test
+    void enrolsAcrossChunksAndSkipsExistingEnrolments() {
+
+        appDAO.enrolStudents(List.of(
+                new Enrolment(firstCourseId, studentIds),
+                new Enrolment(secondCourseId, studentIds.subList(0, 10))));
+
+        // again, overlapping ... nothing is enrolled twice
+        appDAO.enrolStudents(List.of(new Enrolment(secondCourseId, studentIds.subList(0, 20))));
+
+        assertEquals(STUDENTS, appDAO.countStudentsByCourseId(firstCourseId));
+        assertEquals(20, appDAO.countStudentsByCourseId(secondCourseId));
+    }
+
+    @Test
+    void loadedRostersAreLoadedAgain() {
+
+        Course tempCourse = appDAO.findCourseAndStudentsByCourseId(secondCourseId);
+        Student tempStudent = appDAO.findStudentAndCoursesByStudentId(studentIds.get(0));
+
+        assertEquals(0, tempCourse.getStudents().size());
+        assertEquals(0, tempStudent.getCourses().size());
+
+        appDAO.enrolStudents(List.of(new Enrolment(secondCourseId, studentIds.subList(0, 5))));
+
+        // the stale copies are let go of ... the next find sees the new enrolments
+        assertFalse(entityManager.contains(tempCourse));
+        assertFalse(entityManager.contains(tempStudent));
+
+        assertEquals(5, appDAO.findCourseAndStudentsByCourseId(secondCourseId).getStudents().size());
+        assertEquals(1, appDAO.findStudentAndCoursesByStudentId(studentIds.get(0)).getCourses().size());
+    }
+
+    @Test
+    void largeLoadedRosterIsNotReadStudentByStudent() {
+
+        appDAO.enrolStudents(List.of(new Enrolment(firstCourseId, studentIds.subList(5, STUDENTS))));
+        startNewRequest();
+
+        Course tempCourse = appDAO.findCourseAndStudentsByCourseId(firstCourseId);
+        assertEquals(STUDENTS - 5, tempCourse.getStudents().size());
+
+        statistics.clear();
+
+        appDAO.enrolStudents(List.of(new Enrolment(firstCourseId, studentIds)));
+
+        // the roster is dropped ... not refreshed with one select per student on it
+        assertFalse(entityManager.contains(tempCourse));
+        assertTrue(statistics.getPrepareStatementCount() < 10,
+                statistics.getPrepareStatementCount() + " statements to enrol into a loaded roster");
+
+        // nothing is written a second time
+        SqlStatementRecorder.clear();
+        entityManager.flush();
+
+        assertEquals(0, SqlStatementRecorder.count("insert into course_student"));
+
+        // and loading it again takes one query for the whole roster
+        statistics.clear();
+
+        assertEquals(STUDENTS, appDAO.findCourseAndStudentsByCourseId(firstCourseId).getStudents().size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,51 @@
+package com.luv2code.cruddemo.dao;
+
+import com.luv2code.cruddemo.entity.Course;
+import com.luv2code.cruddemo.entity.Instructor;
+import com.luv2code.cruddemo.entity.Review;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CourseSummaryTests extends AbstractAppDAOTests {
+
+    private int instructorId;
+
+    @BeforeEach
+    void createCourses() {
+
+        Instructor tempInstructor = new Instructor("Summary", "Projection", "summary.projection@luv2code.com");
+
+        Course reviewed = new Course("Projections - With Reviews");
+        reviewed.addReview(new Review("Great course"));
+        reviewed.addReview(new Review("Cool course"));
+        reviewed.addReview(new Review("Dumb course"));
+
+        tempInstructor.add(reviewed);
+        tempInstructor.add(new Course("Projections - No Reviews"));
+
+        appDAO.save(tempInstructor);
+        instructorId = tempInstructor.getId();
+
+        startNewRequest();
+    }
+
+    @Test
+    void summariesComeFromOneStatementWithoutEntities() {
+
+        List<CourseSummary> summaries = appDAO.findCourseSummariesByInstructorId(instructorId);
+
+        assertEquals(List.of(
+                new CourseSummary(summaries.get(0).id(), "Projections - No Reviews", "Summary Projection", 0),
+                new CourseSummary(summaries.get(1).id(), "Projections - With Reviews", "Summary Projection", 3)),
+                summaries);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(0, entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+    }
+}
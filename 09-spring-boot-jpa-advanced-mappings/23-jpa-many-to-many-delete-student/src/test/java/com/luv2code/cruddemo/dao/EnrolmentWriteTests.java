@@ -0,0 +1,77 @@
+package com.luv2code.cruddemo.dao;
+
+import com.luv2code.cruddemo.entity.Course;
+import com.luv2code.cruddemo.entity.Student;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EnrolmentWriteTests extends AbstractAppDAOTests {
+
+    private static final int ENROLLED_STUDENTS = 10_000;
+
+    private int courseId;
+
+    @BeforeEach
+    void createCourseWithManyStudents() {
+
+        allowLazyLoads();
+
+        Course tempCourse = new Course("Set Semantics - A Very Popular Course");
+        appDAO.save(tempCourse);
+        courseId = tempCourse.getId();
+
+        for (int i = 0; i < ENROLLED_STUDENTS; i++) {
+            entityManager.persist(new Student("Enrolled", "Student" + i, "enrolled." + i + "@luv2code.com"));
+
+            if (i % 500 == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+
+        // enrol them all with one statement
+        entityManager.createNativeQuery(
+                        "insert into course_student (course_id, student_id) "
+                                + "select ?, id from student where email like 'enrolled.%'")
+                .setParameter(1, courseId)
+                .executeUpdate();
+
+        startNewRequest();
+    }
+
+    @Test
+    void addingOneStudentWritesOneRow() {
+
+        Course tempCourse = appDAO.findCourseById(courseId, FetchProfile.COURSE_WITH_STUDENTS);
+        assertEquals(ENROLLED_STUDENTS, tempCourse.getStudents().size());
+
+        Student newStudent = new Student("Late", "Enrolment", "late.enrolment@luv2code.com");
+        entityManager.persist(newStudent);
+        entityManager.flush();
+
+        SqlStatementRecorder.clear();
+
+        tempCourse.addStudent(newStudent);
+        entityManager.flush();
+
+        assertEquals(1, SqlStatementRecorder.count("insert into course_student"));
+        assertEquals(0, SqlStatementRecorder.count("delete from course_student"));
+    }
+
+    @Test
+    void removingOneStudentDeletesOneRow() {
+
+        Course tempCourse = appDAO.findCourseById(courseId, FetchProfile.COURSE_WITH_STUDENTS);
+        Student firstStudent = tempCourse.getStudents().iterator().next();
+
+        SqlStatementRecorder.clear();
+
+        tempCourse.getStudents().remove(firstStudent);
+        entityManager.flush();
+
+        assertEquals(1, SqlStatementRecorder.count("delete from course_student"));
+        assertEquals(0, SqlStatementRecorder.count("insert into course_student"));
+    }
+}
@@ -0,0 +1,74 @@
+package com.luv2code.cruddemo.dao;
+
+import com.luv2code.cruddemo.entity.Course;
+import com.luv2code.cruddemo.entity.Instructor;
+import com.luv2code.cruddemo.entity.InstructorDetail;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FetchProfileTests extends AbstractAppDAOTests {
+
+    private int instructorId;
+
+    @BeforeEach
+    void createInstructorWithCourses() {
+
+        Instructor tempInstructor = new Instructor("Fetch", "Profile", "fetch.profile@luv2code.com");
+        tempInstructor.setInstructorDetail(new InstructorDetail("http://www.luv2code.com/youtube", "Graphs"));
+        tempInstructor.add(new Course("Entity Graphs - The Basics"));
+        tempInstructor.add(new Course("Entity Graphs - Advanced"));
+
+        appDAO.save(tempInstructor);
+        instructorId = tempInstructor.getId();
+
+        startNewRequest();
+    }
+
+    @Test
+    void profileLoadsTheWholeGraph() {
+
+        Instructor tempInstructor =
+                appDAO.findInstructorById(instructorId, FetchProfile.INSTRUCTOR_WITH_COURSES_AND_DETAIL);
+
+        assertTrue(Hibernate.isInitialized(tempInstructor.getInstructorDetail()));
+        assertTrue(Hibernate.isInitialized(tempInstructor.getCourses()));
+        assertEquals(2, tempInstructor.getCourses().size());
+    }
+
+    @Test
+    void profileLoadsTheGraphOfAnInstructorAlreadyLoaded() {
+
+        Instructor loaded = appDAO.findInstructorById(instructorId);
+        assertFalse(Hibernate.isInitialized(loaded.getCourses()));
+
+        Instructor tempInstructor =
+                appDAO.findInstructorById(instructorId, FetchProfile.INSTRUCTOR_WITH_COURSES_AND_DETAIL);
+
+        assertSame(loaded, tempInstructor);
+        assertTrue(Hibernate.isInitialized(tempInstructor.getCourses()));
+        assertEquals(2, tempInstructor.getCourses().size());
+    }
+
+    @Test
+    void lazyLoadOutsideTheProfileFails() {
+
+        Instructor tempInstructor = appDAO.findInstructorById(instructorId, FetchProfile.INSTRUCTOR_WITH_DETAIL);
+
+        assertFalse(Hibernate.isInitialized(tempInstructor.getCourses()));
+        assertThrows(LazyLoadGuard.LazyLoadException.class, () -> tempInstructor.getCourses().size());
+    }
+
+    @Test
+    void profileMustMatchTheEntity() {
+
+        assertThrows(IllegalArgumentException.class,
+                () -> appDAO.findCourseById(instructorId, FetchProfile.INSTRUCTOR_WITH_COURSES));
+    }
+}
@@ -0,0 +1,53 @@
+package com.luv2code.cruddemo.dao;
+
+import com.luv2code.cruddemo.entity.Instructor;
+import com.luv2code.cruddemo.entity.InstructorDetail;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// relies on the entity classes being enhanced by the hibernate-maven-plugin (mvn test does that)
+
+class InstructorDetailFetchTests extends AbstractAppDAOTests {
+
+    private int instructorId;
+
+    private int instructorDetailId;
+
+    @BeforeEach
+    void createInstructorWithDetail() {
+
+        Instructor tempInstructor = new Instructor("Lazy", "OneToOne", "lazy.one.to.one@luv2code.com");
+        tempInstructor.setInstructorDetail(new InstructorDetail("http://www.luv2code.com/youtube", "Proxies"));
+
+        appDAO.save(tempInstructor);
+        instructorId = tempInstructor.getId();
+        instructorDetailId = tempInstructor.getInstructorDetail().getId();
+
+        startNewRequest();
+    }
+
+    @Test
+    void findingTheDetailDoesNotQueryTheInstructor() {
+
+        InstructorDetail tempInstructorDetail = appDAO.findInstructorDetailById(instructorDetailId);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        // ... until it is used
+        assertEquals(instructorId, tempInstructorDetail.getInstructor().getId());
+        assertEquals("Lazy", tempInstructorDetail.getInstructor().getFirstName());
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findingTheInstructorTakesOneQuery() {
+
+        Instructor tempInstructor = appDAO.findInstructorById(instructorId);
+
+        assertEquals("Proxies", tempInstructor.getInstructorDetail().getHobby());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
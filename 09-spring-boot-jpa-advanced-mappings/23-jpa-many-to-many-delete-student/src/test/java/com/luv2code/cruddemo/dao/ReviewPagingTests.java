@@ -0,0 +1,84 @@
+package com.luv2code.cruddemo.dao;
+
+import com.luv2code.cruddemo.entity.Course;
+import com.luv2code.cruddemo.entity.Review;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReviewPagingTests extends AbstractAppDAOTests {
+
+    private static final int REVIEWS = 25;
+
+    private int courseId;
+
+    @BeforeEach
+    void createCourseWithReviews() {
+
+        Course tempCourse = new Course("Keyset Paging - Reviewed A Lot");
+
+        for (int i = 0; i < REVIEWS; i++) {
+            tempCourse.addReview(new Review("Review " + i));
+        }
+
+        appDAO.save(tempCourse);
+        courseId = tempCourse.getId();
+
+        startNewRequest();
+    }
+
+    @Test
+    void pagesThroughAllReviewsInIdOrder() {
+
+        List<Integer> pageSizes = new ArrayList<>();
+        List<Integer> ids = new ArrayList<>();
+        int cursor = 0;
+
+        List<Review> page;
+
+        while (!(page = appDAO.findReviewsForCourse(courseId, cursor, 10)).isEmpty()) {
+            pageSizes.add(page.size());
+            page.forEach(review -> ids.add(review.getId()));
+            cursor = page.get(page.size() - 1).getId();
+        }
+
+        assertEquals(List.of(10, 10, 5), pageSizes);
+        assertEquals(ids.stream().sorted().distinct().toList(), ids);
+        assertEquals(0, statistics.getCollectionLoadCount());
+    }
+
+    @Test
+    void addingReviewsLeavesTheCollectionAlone() {
+
+        List<Review> newReviews = List.of(new Review("Batched 1"), new Review("Batched 2"), new Review("Batched 3"));
+
+        appDAO.addReviews(courseId, newReviews);
+
+        newReviews.forEach(review -> assertNotEquals(0, review.getId()));
+
+        assertEquals(REVIEWS + newReviews.size(), appDAO.countReviewsByCourseId(courseId));
+        assertFalse(Hibernate.isInitialized(appDAO.findCourseById(courseId).getReviews()));
+        assertEquals(0, statistics.getCollectionLoadCount());
+    }
+
+    @Test
+    void addingReviewsToALoadedCollectionKeepsItCurrent() {
+
+        Course tempCourse = appDAO.findCourseAndReviewsByCourseId(courseId);
+        assertTrue(Hibernate.isInitialized(tempCourse.getReviews()));
+
+        appDAO.addReviews(courseId, List.of(new Review("One more")));
+        entityManager.flush();
+
+        assertEquals(REVIEWS + 1, tempCourse.getReviews().size());
+        assertEquals(REVIEWS + 1, appDAO.countReviewsByCourseId(courseId));
+    }
+}
@@ -0,0 +1,154 @@
+package com.luv2code.cruddemo.dao;
+
+import com.luv2code.cruddemo.entity.CacheRegions;
+import com.luv2code.cruddemo.entity.Course;
+import com.luv2code.cruddemo.entity.Instructor;
+import com.luv2code.cruddemo.entity.InstructorDetail;
+import com.luv2code.cruddemo.entity.Review;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// the same Spring context as the other AppDAO tests, but no test transaction ... the cache
+// only sees committed data, so each call commits on its own and the test data is deleted
+// again afterwards
+
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SecondLevelCacheTests extends AbstractAppDAOTests {
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private int instructorId;
+
+    private final List<Integer> courseIds = new ArrayList<>();
+
+    @BeforeEach
+    void createInstructorWithCourses() {
+
+        // the tests read collections lazily, inside their own transactions
+        allowLazyLoads();
+
+        Instructor tempInstructor = new Instructor("Cached", "Instructor", "cached.instructor@luv2code.com");
+        tempInstructor.setInstructorDetail(new InstructorDetail("http://www.luv2code.com/youtube", "Caching"));
+
+        Course reviewed = new Course("Caching - With Reviews");
+        reviewed.addReview(new Review("Fast course"));
+        reviewed.addReview(new Review("Even faster the second time"));
+
+        tempInstructor.add(reviewed);
+        tempInstructor.add(new Course("Caching - No Reviews"));
+
+        appDAO.save(tempInstructor);
+
+        instructorId = tempInstructor.getId();
+        tempInstructor.getCourses().forEach(course -> courseIds.add(course.getId()));
+
+        statistics.clear();
+    }
+
+    @AfterEach
+    void deleteInstructorWithCourses() {
+
+        courseIds.forEach(appDAO::deleteCourseById);
+        appDAO.deleteInstructorById(instructorId);
+    }
+
+    @Test
+    void instructorAndDetailComeFromTheCache() {
+
+        appDAO.findInstructorById(instructorId);
+
+        long statements = statistics.getPrepareStatementCount();
+        long instructorHits = hits(CacheRegions.INSTRUCTOR);
+        long detailHits = hits(CacheRegions.INSTRUCTOR_DETAIL);
+
+        Instructor tempInstructor = appDAO.findInstructorById(instructorId);
+
+        assertEquals("Caching", tempInstructor.getInstructorDetail().getHobby());
+        assertEquals(statements, statistics.getPrepareStatementCount());
+        assertEquals(instructorHits + 1, hits(CacheRegions.INSTRUCTOR));
+        assertEquals(detailHits + 1, hits(CacheRegions.INSTRUCTOR_DETAIL));
+    }
+
+    @Test
+    void collectionsComeFromTheCache() {
+
+        int courseId = courseIds.get(0);
+
+        // new collections aren't cached ... the first read loads and caches them
+        courseAndReviewCount(courseId);
+
+        long statements = statistics.getPrepareStatementCount();
+        long reviewHits = hits(CacheRegions.REVIEW);
+
+        assertEquals(List.of(2, 2), courseAndReviewCount(courseId));
+        assertEquals(statements, statistics.getPrepareStatementCount());
+
+        assertEquals(1, hits(CacheRegions.INSTRUCTOR_COURSES));
+        assertEquals(1, hits(CacheRegions.COURSE_REVIEWS));
+        assertEquals(reviewHits + 2, hits(CacheRegions.REVIEW));
+    }
+
+    @Test
+    void updatesReplaceTheCachedCourse() {
+
+        Course tempCourse = appDAO.findCourseById(courseIds.get(1));
+        tempCourse.setTitle("Caching - Renamed");
+
+        appDAO.update(tempCourse);
+
+        long statements = statistics.getPrepareStatementCount();
+
+        assertEquals("Caching - Renamed", appDAO.findCourseById(courseIds.get(1)).getTitle());
+        assertEquals(statements, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void deletesEvictTheCachedCollection() {
+
+        // cache the instructor's courses
+        assertEquals(2, courseCount());
+
+        int extraCourseId = transactionTemplate.execute(status -> {
+            Course extra = new Course("Caching - Deleted Soon");
+            appDAO.findInstructorById(instructorId).add(extra);
+            appDAO.save(extra);
+
+            return extra.getId();
+        });
+
+        assertEquals(3, courseCount());
+
+        appDAO.deleteCourseById(extraCourseId);
+
+        assertEquals(2, courseCount());
+    }
+
+    // the instructor's course count and the course's review count, in one transaction
+
+    private List<Integer> courseAndReviewCount(int courseId) {
+        return transactionTemplate.execute(status -> {
+            Course tempCourse = appDAO.findCourseById(courseId);
+
+            return List.of(tempCourse.getInstructor().getCourses().size(), tempCourse.getReviews().size());
+        });
+    }
+
+    private int courseCount() {
+        return transactionTemplate.execute(status -> appDAO.findInstructorById(instructorId).getCourses().size());
+    }
+
+    private long hits(String region) {
+        return statistics.getDomainDataRegionStatistics(region).getHitCount();
+    }
+}
@@ -0,0 +1,39 @@
+package com.luv2code.cruddemo.dao;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// records every SQL statement Hibernate prepares ... enable with
+// spring.jpa.properties.hibernate.session_factory.statement_inspector=com.luv2code.cruddemo.dao.SqlStatementRecorder
+
+public class SqlStatementRecorder implements StatementInspector {
+
+    private static final List<String> statements = new ArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+
+        synchronized (statements) {
+            statements.add(sql.toLowerCase(Locale.ROOT));
+        }
+
+        return sql;
+    }
+
+    public static void clear() {
+
+        synchronized (statements) {
+            statements.clear();
+        }
+    }
+
+    public static long count(String prefix) {
+
+        synchronized (statements) {
+            return statements.stream().filter(sql -> sql.startsWith(prefix)).count();
+        }
+    }
+}